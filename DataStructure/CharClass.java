@@ -0,0 +1,115 @@
+package DataStructure;
+
+import java.util.*;
+
+public class CharClass
+{
+    private static final int BLOCK = 256;                                   // 每块覆盖的字符数
+    private final int[] index;                                              // 字符高8位到块起始位置的映射
+    private final char[] blocks;                                            // 去重后的各块，存放低8位对应的等价类编号
+    private final int size;                                                 // 等价类个数
+
+    public CharClass(int[] classOf, int size)
+    {
+        // 按高8位把完整的UTF-16字符表切成块，内容相同的块只存一份
+        if(classOf.length != Character.MAX_VALUE + 1)
+            throw new IllegalArgumentException("class map must cover all chars");
+        HashMap<String, Integer> seen = new HashMap<>(); char[] block = new char[BLOCK]; String key;
+        char[] buf = new char[BLOCK * 4]; int len = 0; Integer pos;
+        index = new int[classOf.length / BLOCK];
+        for(int hi=0;hi<index.length;hi++) {
+            for(int lo=0;lo<BLOCK;lo++)
+                block[lo] = (char)classOf[hi * BLOCK + lo];
+            key = new String(block);
+            if((pos = seen.get(key)) == null) {
+                if(len == buf.length)
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                System.arraycopy(block, 0, buf, len, BLOCK);
+                seen.put(key, pos = len);
+                len += BLOCK;
+            }
+            index[hi] = pos;
+        }
+        this.blocks = Arrays.copyOf(buf, len);
+        this.size = size;
+    }
+
+    CharClass(int[] index, char[] blocks, int size)
+    {
+        this.index = index;
+        this.blocks = blocks;
+        this.size = size;
+    }
+
+    static CharClass of(List<String> rules, ArrayList<int[]> candidates)
+    {
+        // 所属规则列完全相同的字符在任何状态下的转移都相同，归为同一等价类，0类不属于任何规则列，
+        // 各等价类所属的规则列依次放入candidates；单字符规则按字符直接查表，其余的字符类规则逐个判断
+        HashMap<Integer, ArrayList<Integer>> single = new HashMap<>(); ArrayList<Integer> sets = new ArrayList<>();
+        ArrayList<CharSet> setRule = new ArrayList<>(); CharSet cs; int ch;
+        for(int i=0;i<rules.size();i++) {
+            cs = CharSet.of(rules.get(i));
+            if((ch = cs.single()) >= 0)
+                single.computeIfAbsent(ch, k -> new ArrayList<>()).add(i);
+            else {
+                sets.add(i);
+                setRule.add(cs);
+            }
+        }
+        HashMap<List<Integer>, Integer> classMap = new HashMap<>(); ArrayList<int[]> cands = candidates;
+        cands.clear();
+        int[] classOf = new int[Character.MAX_VALUE + 1]; ArrayList<Integer> cols, prev = new ArrayList<>(), lit;
+        Integer cls = 0;
+        classMap.put(prev, 0); cands.add(new int[0]);
+        for(int c=0;c<classOf.length;c++) {
+            cols = new ArrayList<>();
+            if((lit = single.get(c)) != null)
+                cols.addAll(lit);
+            for(int i=0;i<sets.size();i++)
+                if(setRule.get(i).contains((char)c))
+                    cols.add(sets.get(i));
+            if(!cols.equals(prev)) {                                        // 相邻字符往往属于同一类
+                Collections.sort(cols);
+                if((cls = classMap.get(cols)) == null) {
+                    classMap.put(cols, cls = cands.size());
+                    int[] a = new int[cols.size()];
+                    for(int i=0;i<a.length;i++)
+                        a[i] = cols.get(i);
+                    cands.add(a);
+                }
+                prev = cols;
+            }
+            classOf[c] = cls;
+        }
+        return new CharClass(classOf, cands.size());
+    }
+
+    public int classOf(char ch)
+    {
+        return blocks[index[ch >>> 8] + (ch & (BLOCK - 1))];
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public CharClass remap(int[] newClass, int newSize)
+    {
+        // 把旧等价类编号整体替换为新编号，用于合并行为相同的等价类
+        char[] nb = new char[blocks.length];
+        for(int i=0;i<blocks.length;i++)
+            nb[i] = (char)newClass[blocks[i]];
+        return new CharClass(index, nb, newSize);
+    }
+
+    int[] getIndex()
+    {
+        return this.index;
+    }
+
+    char[] getBlocks()
+    {
+        return this.blocks;
+    }
+}
@@ -0,0 +1,111 @@
+package DataStructure;
+
+import java.util.Arrays;
+
+// 一条规则所匹配的字符集合，规则可以是单个字符、转义字符、\c \d \w或[...]形式的字符类
+public class CharSet
+{
+    private final int[] ranges;                                             // 按[下界, 上界]成对存放的字符区间
+    private final boolean letter, digit;                                    // 是否包含全部字母、全部数字
+    private final boolean negate;                                           // 是否取补集
+
+    private CharSet(int[] ranges, boolean letter, boolean digit, boolean negate)
+    {
+        this.ranges = ranges;
+        this.letter = letter;
+        this.digit = digit;
+        this.negate = negate;
+    }
+
+    public static CharSet of(String rule)
+    {
+        if(rule == null)
+            throw new NullPointerException("rule cannot be null");
+        if(rule.length() >= 2 && rule.charAt(0) == '[')
+            return parseClass(rule);
+        if(rule.length() == 1)
+            return new CharSet(new int[] {rule.charAt(0), rule.charAt(0)}, false, false, false);
+        if(rule.length() == 2 && rule.charAt(0) == '\\')
+            return escape(rule.charAt(1));
+        throw new IllegalArgumentException("illegal rule:" + rule);
+    }
+
+    private static CharSet escape(char ch)
+    {
+        switch(ch) {
+            case 'c': return new CharSet(new int[0], true, false, false);
+            case 'd': return new CharSet(new int[0], false, true, false);
+            case 'w': return new CharSet(new int[0], true, true, false);
+            case 'n': ch = '\n'; break;
+            case 't': ch = '\t'; break;
+            case 'r': ch = '\r'; break;
+        }
+        return new CharSet(new int[] {ch, ch}, false, false, false);
+    }
+
+    private static CharSet parseClass(String rule)
+    {
+        // [^...]取补集，a-z表示区间，开头或结尾的-按普通字符处理，类中可以使用转义
+        int end = rule.length() - 1, p = 1, len = 0; int[] rs = new int[8];
+        boolean letter = false, digit = false, negate = false; CharSet esc; int lo, hi;
+        if(rule.charAt(end) != ']')
+            throw new IllegalArgumentException("illegal rule:" + rule + " missing ]");
+        if(rule.charAt(p) == '^') {
+            negate = true;
+            p++;
+        }
+        if(p == end)
+            throw new IllegalArgumentException("illegal rule:" + rule + " empty class");
+        while(p < end) {
+            if(rule.charAt(p) == '\\') {
+                if(p + 1 == end)
+                    throw new IllegalArgumentException("illegal rule:" + rule + " dangling \\ at " + p);
+                esc = escape(rule.charAt(p + 1));
+                p += 2;
+                if(esc.letter || esc.digit) {
+                    letter |= esc.letter; digit |= esc.digit;
+                    continue;
+                }
+                lo = esc.ranges[0];
+            } else
+                lo = rule.charAt(p++);
+            hi = lo;
+            if(p + 1 < end && rule.charAt(p) == '-') {
+                if(rule.charAt(p + 1) == '\\') {
+                    if(p + 2 == end)
+                        throw new IllegalArgumentException("illegal rule:" + rule + " dangling \\ at " + (p + 1));
+                    esc = escape(rule.charAt(p + 2));
+                    if(esc.letter || esc.digit)
+                        throw new IllegalArgumentException("illegal rule:" + rule + " class cannot be range bound");
+                    hi = esc.ranges[0];
+                    p += 3;
+                } else {
+                    hi = rule.charAt(p + 1);
+                    p += 2;
+                }
+                if(hi < lo)
+                    throw new IllegalArgumentException("illegal rule:" + rule + " range out of order");
+            }
+            if(len + 2 > rs.length)
+                rs = Arrays.copyOf(rs, rs.length * 2);
+            rs[len++] = lo; rs[len++] = hi;
+        }
+        return new CharSet(Arrays.copyOf(rs, len), letter, digit, negate);
+    }
+
+    public boolean contains(char ch)
+    {
+        boolean in = letter && Character.isLetter(ch) || digit && Character.isDigit(ch);
+        for(int i=0;i<ranges.length && !in;i+=2)
+            in = ch >= ranges[i] && ch <= ranges[i + 1];
+        return in != negate;
+    }
+
+    public int single()
+    {
+        // 只含一个字符时返回该字符，否则返回-1
+        if(negate || letter || digit || ranges.length != 2 || ranges[0] != ranges[1])
+            return -1;
+        return ranges[0];
+    }
+}
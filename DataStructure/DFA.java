@@ -1,165 +1,164 @@
 package DataStructure;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+// 构造完成后状态机不再改变，可在多个线程间共享，匹配位置保存在各自的Cursor中；
+// 子集构造与最小化在Builder中进行，nfa、状态集映射等中间结果不随状态机保留
 public class DFA
 {
-    private int pos_state;                                                  // 状态机的起始状态
-    private final int ILLEGALSTATE;                                         // 状态机的非法状态
-    private HashSet<Integer> start_state;                                   // 起始状态集合
-    private HashMap<Integer, Integer> end_state_type;                       // 终止状态到终止类型的映射
+    private static final int ILLEGALSTATE = -1;                             // 状态机的非法状态
+    private final Set<Integer> start_state;                                 // 起始状态集合
+    private final Map<Integer, Integer> end_state_type;                     // 终止状态到终止类型的映射
     private final String[] REGEX;                                           // 等价的正则表达式
-    private final NFA NFA;                                                  // 等价的nfa
-    private final int NFAS;                                                 // nfa的起始状态
-    private final HashSet<Integer> NFAE;                                    // nfa的终止状态集
-    private int row_len;                                                    // 状态表行长度，即状态数
-    private int column_len;                                                 // 状态表列长度，即规则数
-    private int[][] table;                                                  // 状态表
-    private TreeSet<Integer>[] nullEnclosed;                                // nfa各状态的空闭包
-    private ArrayList<String> regularMap;                                   // 规则集
-    private HashMap<TreeSet<Integer>, Integer> stateMap;                    // 状态集
-    private boolean[] specialCh;
+    private final int row_len;                                              // 状态表行长度，即状态数
+    private final int origin_row_len;                                       // 最小化前的状态数
+    private final int column_len;                                           // 状态表列长度，即nfa给出的字符等价类数
+    private final int[][] table;                                            // 状态表
+    private final List<String> regularMap;                                  // 规则集
+    private final String[] column_names;                                    // 各列对应的规则，由缓存构造时为空
+    private final CharClass classes;                                        // 字符到等价类的映射
+    private final int class_len;                                            // 等价类个数
+    private final int[] trans;                                              // 扁平化的状态转移表，trans[state * class_len + 等价类]
+    private final int[] end_types;                                          // 各状态的终止类型，0表示非终态
+    private final boolean[] loops;                                          // loops[state * class_len + 等价类]表示该转移回到自身
+    private final boolean[] has_loop;                                       // 各状态是否存在自环
 
     public DFA(String[] regex, int[] ends)
     {
-        reset();
-        ILLEGALSTATE = -1;
-        checkEnds(ends);
-        start_state = new HashSet<>();
-        end_state_type = new HashMap<>();
-        REGEX = regex.clone();
-        regularMap = new ArrayList<>();
-        NFA = new NFA(REGEX, ends);
-        NFAS = NFA.getStartState();
-        NFAE = NFA.getEndState();
-        for(String s : NFA.getRegulars())
-            if(!s.contentEquals("null"))
-                regularMap.add(s);
-        row_len = 0;
-        column_len = regularMap.size();
-        table = new int[10000][column_len];
-        stateMap = new HashMap<>();
-        specialCh = new boolean[256];
-        specialCh['('] = true;
-        specialCh[')'] = true;
-        specialCh['*'] = true;
-        specialCh['+'] = true;
-        specialCh['|'] = true;
-        optimize();
-        minimize();
+        this(regex, ends, false);
     }
 
-    private void checkEnds(int[] ends)
+    public DFA(String[] regex, int[] ends, boolean direct)
     {
-        HashSet<Integer> visit = new HashSet<>();
-        for(int i : ends)
-        {
-            if(!visit.add(i))
-                throw new IllegalArgumentException("end state cannot be same");
-            else if(i == ILLEGALSTATE)
-                throw new IllegalArgumentException("end state cannot contains ILLEGALSTATE:" + ILLEGALSTATE);
-        }
+        this(regex, ends, direct, null);
     }
 
-    public String[] getRegex()
+    public DFA(String[] regex, int[] ends, boolean direct, ForkJoinPool pool)
     {
-        return this.REGEX;
+        // pool不为空时在其中并行进行子集构造，状态编号与串行构造完全相同
+        // direct为真时跳过nfa，由正则语法树的followpos直接构造状态集，两种方式得到的状态机等价
+        this(new Builder(regex, ends, direct, pool));
     }
 
-    @SuppressWarnings("unchecked")
-    private void optimize()
+    private DFA(Builder b)
     {
-        ArrayList<State> row = NFA.getTable().getRows(); nullEnclosed = new TreeSet[row.size()];
-        // 计算各个状态的空闭包
-        for(int i=0;i<row.size();i++) {
-            nullEnclosed[i] = calcEnclosedPack(row.get(i).getS());
-        }
-        // 找到带初始状态的闭包，将其作为新的初始状态
-        int s = 0;
-        for(;s<nullEnclosed.length;s++)
-            if(nullEnclosed[s] != null && nullEnclosed[s].contains(NFA.getStartState()))
-                break;
-        this.createDFATable(s);
+        // 只取出构造的结果，Builder连同其中的nfa与状态集映射在此之后即可回收
+        this(b.regex, b.graph.getRegulars(), Arrays.copyOf(b.table, b.row_len), b.classes, b.trans,
+             b.end_state_type, b.start_state, b.origin_row_len, b.columnNames());
     }
 
-    private void minimize()
+    DFA(String[] regex, ArrayList<String> regulars, int[][] table, CharClass classes, int[] trans,
+        HashMap<Integer, Integer> endType, HashSet<Integer> start, int originRows)
     {
+        // 由已编译好的状态表直接构造，跳过nfa的构建、子集构造与最小化
+        this(regex.clone(), regulars, table, classes, trans, endType, start, originRows, null);
     }
 
-    private void createDFATable(int start)
+    private DFA(String[] regex, List<String> regulars, int[][] table, CharClass classes, int[] trans,
+                Map<Integer, Integer> endType, Set<Integer> start, int originRows, String[] columnNames)
     {
-        // 从初始状态的闭包开始，对每个规则列求执行规则后的状态集，并将其作为新的状态(如果之前没有的话)，不断构造dfa状态表直到不再有新状态出现
-        start_state.add(this.row_len); stateMap.put(nullEnclosed[start], row_len++);
-
-        Queue<TreeSet<Integer>> sq = new LinkedList<>();
-        sq.add(nullEnclosed[start]); TreeSet<Integer> pos, actset; int posid, regularid; String regular;
-        while(!sq.isEmpty()) {
-            pos = sq.poll();
-            if(pos == null)
-                continue;
-            posid = stateMap.get(pos);
-            // 判别当前状态是否包含初态或终态
-            if (pos.contains(NFAS))
-                this.start_state.add(posid);
-            for(Integer s : pos) {
-                if (NFAE.contains(s)) {
-                    end_state_type.put(posid, s);
-                    break;
-                }
-            }
-            for(int i=0;i<column_len;i++) {
-                regularid = i; regular = regularMap.get(regularid);
-                actset = getActionPack(pos, regular);
-                if(actset.isEmpty()) {
-                    // 动作集为空，则该动作非法
-                    table[posid][regularid] = ILLEGALSTATE;
-                } else {
-                    // 若新状态，则将其加入队列，并创建映射
-                    if (!stateMap.containsKey(actset)) {
-                        sq.add(actset);
-                        stateMap.put(actset, row_len++);
-                    }
-                    table[posid][regularid] = stateMap.get(actset);                      // 设置转移后的状态值
-                }
-            }
-        }
+        // 所有字段都是final且只在这里赋值一次，状态机无论经何种方式交给其他线程，对方看到的都是完整的表
+        REGEX = regex;
+        regularMap = Collections.unmodifiableList(regulars);
+        this.table = table;
+        this.classes = classes;
+        this.class_len = classes.size();
+        this.trans = trans;
+        end_state_type = Collections.unmodifiableMap(endType);
+        start_state = Collections.unmodifiableSet(start);
+        row_len = table.length;
+        column_len = table[0].length;
+        origin_row_len = originRows;
+        column_names = columnNames;
+        end_types = calcEndTypes();
+        loops = new boolean[row_len * class_len];
+        has_loop = calcLoops();
     }
 
-    private TreeSet<Integer> getActionPack(TreeSet<Integer> ss, String regular)
+    private int[] calcEndTypes()
     {
-        TreeSet<Integer> acted = new TreeSet<>(), ret; StateTable nfaTable = NFA.getTable();
-        for(Integer s : ss)
-            acted.addAll(NFA.getStateSet(nfaTable.getStateByID(s), regular));
-        ret = new TreeSet<>(acted);
-        for(Integer s : acted)
-            if(!NFAE.contains(s))                                                       // nfa终态无闭包
-                ret.addAll(nullEnclosed[s]);
+        int[] ret = new int[row_len];
+        for(Map.Entry<Integer, Integer> e : end_state_type.entrySet())
+            ret[e.getKey()] = e.getValue();
         return ret;
     }
 
-    private TreeSet<Integer> calcEnclosedPack(int sid)
+    private boolean[] calcLoops()
     {
-        TreeSet<Integer> visit = new TreeSet<>(), ret = new TreeSet<>(); Queue<Integer> q = new LinkedList<>();
-        TreeSet<Integer> tss; Iterator<Integer> itr; Integer ts, row; StateTable nfaTable = NFA.getTable();
-        q.add(sid);
-        while(!q.isEmpty()) {
-            ts = q.poll(); visit.add(ts); ret.add(ts); row = nfaTable.getStateByID(ts);
-            tss = NFA.getStateSet(row, "null"); itr = tss.iterator();
-            while(itr.hasNext()) {
-                ts = itr.next();
-                if (!visit.contains(ts))
-                    q.add(ts);
-            }
-        }
+        // 标识符、数字与空白在自环状态上停留多个字符，记下这些转移以便整段跳过
+        boolean[] ret = new boolean[row_len];
+        for(int st=0;st<row_len;st++)
+            for(int c=0;c<class_len;c++)
+                if(trans[st * class_len + c] == st)
+                    ret[st] = loops[st * class_len + c] = true;
         return ret;
     }
 
+    public String[] getRegex()
+    {
+        return this.REGEX.clone();
+    }
+
+    List<String> getRegulars()
+    {
+        return this.regularMap;
+    }
+
+    // 以下返回内部数组，调用者只读不写
+    int[][] getTable()
+    {
+        return this.table;
+    }
+
+    int[] getTrans()
+    {
+        return this.trans;
+    }
+
+    int[] getEndTypes()
+    {
+        return this.end_types;
+    }
+
+    Map<Integer, Integer> getEndStateType()
+    {
+        return this.end_state_type;
+    }
+
+    Set<Integer> getStartState()
+    {
+        return this.start_state;
+    }
+
+    CharClass getClasses()
+    {
+        return this.classes;
+    }
+
+    public int getClassCount()
+    {
+        return this.class_len;
+    }
+
+    public int getStateCount()
+    {
+        return this.row_len;
+    }
+
+    public int getOriginStateCount()
+    {
+        return this.origin_row_len;
+    }
+
     public void printTable()
     {
         System.out.println("---------------STATE-TABLE---------------");
         System.out.format("%-5s", "");
-        for(String regular : regularMap)
-            System.out.format("%-5s", regular);
+        for(int j=0;j<column_len;j++)
+            System.out.format("%-5s", columnName(j));
         System.out.println();
         for(int i = 0; i< row_len; i++)
         {
@@ -169,89 +168,432 @@ public class DFA
             System.out.println();
         }
         System.out.println("end state type:" + end_state_type);
+        System.out.println("state count:" + row_len + " (before minimize:" + origin_row_len + ") char classes:" + class_len);
         System.out.println("-----------------ENDING------------------");
     }
 
-    public void reset()
+    private String columnName(int col)
     {
-        pos_state = 0;
+        // 由缓存构造时没有规则信息，只显示列号
+        return column_names == null ? "#" + col : column_names[col];
     }
 
-    public Integer getEndingType()
+    // 子集构造与最小化过程中的可变状态，只在构造DFA时存在
+    private static class Builder
     {
-        return end_state_type.get(this.pos_state);
-    }
+        private final String[] regex;                                       // 等价的正则表达式
+        private final StateGraph graph;                                     // nfa或followpos给出的状态集运算
+        private HashSet<Integer> start_state;                               // 起始状态集合
+        private HashMap<Integer, Integer> end_state_type;                   // 终止状态到终止类型的映射
+        private int row_len;                                                // 状态表行长度，即状态数
+        private int origin_row_len;                                         // 最小化前的状态数
+        private final int column_len;                                       // 状态表列长度，即nfa给出的字符等价类数
+        private int[][] table;                                              // 状态表，按需增长
+        private final HashMap<StateSet, Integer> stateMap;                  // 状态集到状态编号的映射
+        private CharClass classes;                                          // 合并后的等价类
+        private int class_len;                                              // 合并后的等价类个数
+        private int[] trans;                                                // 扁平化的状态转移表
 
-    public boolean isEndingState()
-    {
-        return end_state_type.containsKey(pos_state);
+        Builder(String[] regex, int[] ends, boolean direct, ForkJoinPool pool)
+        {
+            checkEnds(ends);
+            this.regex = regex.clone();
+            start_state = new HashSet<>();
+            end_state_type = new HashMap<>();
+            graph = direct ? new FollowPosGraph(this.regex, ends) : new NFAGraph(new NFA(this.regex, ends));
+            row_len = 0;
+            column_len = graph.getClasses().size();
+            table = new int[16][];
+            stateMap = new HashMap<>();
+            if(pool == null)
+                createDFATable();
+            else
+                createDFATableParallel(pool);
+            minimize();
+            compileTable();
+        }
+
+        String[] columnNames()
+        {
+            // 列对应的等价类所属的规则，仅供printTable显示
+            String[] ret = new String[column_len];
+            ArrayList<String> regulars = graph.getRegulars();
+            for(int col=0;col<column_len;col++) {
+                StringJoiner sj = new StringJoiner(",");
+                for(int r : graph.getCandidates(col))
+                    sj.add(regulars.get(r));
+                ret[col] = sj.toString();
+            }
+            return ret;
+        }
+
+        private void checkEnds(int[] ends)
+        {
+            HashSet<Integer> visit = new HashSet<>();
+            for(int i : ends)
+            {
+                if(!visit.add(i))
+                    throw new IllegalArgumentException("end state cannot be same");
+                else if(i == ILLEGALSTATE)
+                    throw new IllegalArgumentException("end state cannot contains ILLEGALSTATE:" + ILLEGALSTATE);
+            }
+        }
+
+        private void minimize()
+        {
+            // Hopcroft划分求精，非法状态作为虚拟的死状态n参与划分，不同终止类型的终态互不合并
+            int n = row_len, total = n + 1, dead = n;
+            origin_row_len = row_len;
+            if(n <= 1)
+                return;
+            // 构造逆转移表，inv[c]中按目标状态分段存放所有经规则c转移到该状态的源状态
+            int[][] invStart = new int[column_len][], inv = new int[column_len][];
+            int t;
+            for(int c=0;c<column_len;c++) {
+                int[] start = new int[total + 1], list = new int[total], fill;
+                for(int s=0;s<total;s++)
+                    start[target(s, c) + 1]++;
+                for(int s=0;s<total;s++)
+                    start[s + 1] += start[s];
+                fill = Arrays.copyOf(start, total);
+                for(int s=0;s<total;s++) {
+                    t = target(s, c);
+                    list[fill[t]++] = s;
+                }
+                invStart[c] = start; inv[c] = list;
+            }
+            // 初始划分：死状态、非终态、各终止类型的终态
+            int[] elems = new int[total], loc = new int[total], blockOf = new int[total];
+            int[] first = new int[total], end = new int[total], marked = new int[total];
+            boolean[] inWork = new boolean[total]; int blocks = 0, p = 0;
+            LinkedHashMap<Integer, ArrayList<Integer>> initial = new LinkedHashMap<>();
+            initial.put(ILLEGALSTATE, new ArrayList<>(Collections.singletonList(dead)));
+            initial.put(0, new ArrayList<>());
+            for(int s=0;s<n;s++)
+                initial.computeIfAbsent(end_state_type.getOrDefault(s, 0), k -> new ArrayList<>()).add(s);
+            Deque<Integer> work = new ArrayDeque<>();
+            for(ArrayList<Integer> group : initial.values()) {
+                if(group.isEmpty())
+                    continue;
+                first[blocks] = p;
+                for(int s : group) {
+                    elems[p] = s; loc[s] = p++; blockOf[s] = blocks;
+                }
+                end[blocks] = p;
+                work.add(blocks); inWork[blocks++] = true;
+            }
+            // 不断取出划分块作为分割者，用其在各规则下的原像细分其余的块
+            int[] splitter = new int[total], touched = new int[total]; int slen, tlen, b, nb, s, q;
+            while(!work.isEmpty()) {
+                b = work.poll(); inWork[b] = false; slen = 0;
+                for(int i=first[b];i<end[b];i++)
+                    splitter[slen++] = elems[i];
+                for(int c=0;c<column_len;c++) {
+                    tlen = 0;
+                    for(int i=0;i<slen;i++) {
+                        t = splitter[i];
+                        for(int j=invStart[c][t];j<invStart[c][t + 1];j++) {
+                            s = inv[c][j]; b = blockOf[s];
+                            if(loc[s] < first[b] + marked[b])
+                                continue;
+                            if(marked[b] == 0)
+                                touched[tlen++] = b;
+                            // 把被标记的状态交换到块的前部
+                            q = elems[first[b] + marked[b]];
+                            elems[loc[s]] = q; loc[q] = loc[s];
+                            elems[first[b] + marked[b]] = s; loc[s] = first[b] + marked[b];
+                            marked[b]++;
+                        }
+                    }
+                    for(int i=0;i<tlen;i++) {
+                        b = touched[i];
+                        if(marked[b] == end[b] - first[b]) {
+                            marked[b] = 0;
+                            continue;
+                        }
+                        nb = blocks++;
+                        first[nb] = first[b]; end[nb] = first[b] + marked[b]; first[b] = end[nb];
+                        marked[b] = 0;
+                        for(int j=first[nb];j<end[nb];j++)
+                            blockOf[elems[j]] = nb;
+                        if(inWork[b] || end[nb] - first[nb] <= end[b] - first[b]) {
+                            work.add(nb); inWork[nb] = true;
+                        } else {
+                            work.add(b); inWork[b] = true;
+                        }
+                    }
+                }
+            }
+            if(blocks == total)
+                return;
+            // 按原状态编号的先后为各块重新编号，保证初始状态仍为0，死状态所在块即非法状态
+            int[] newID = new int[blocks];
+            Arrays.fill(newID, -2);
+            newID[blockOf[dead]] = ILLEGALSTATE;
+            int count = 0;
+            for(s=0;s<n;s++)
+                if(newID[blockOf[s]] == -2)
+                    newID[blockOf[s]] = count++;
+            int[][] newTable = new int[count][];
+            HashMap<Integer, Integer> newEnd = new HashMap<>();
+            HashSet<Integer> newStart = new HashSet<>();
+            for(s=0;s<n;s++) {
+                int id = newID[blockOf[s]];
+                if(newTable[id] == null) {
+                    newTable[id] = new int[column_len];
+                    for(int c=0;c<column_len;c++)
+                        newTable[id][c] = table[s][c] == ILLEGALSTATE ? ILLEGALSTATE : newID[blockOf[table[s][c]]];
+                }
+                if(end_state_type.containsKey(s))
+                    newEnd.put(id, end_state_type.get(s));
+            }
+            for(Integer st : start_state)
+                newStart.add(newID[blockOf[st]]);
+            stateMap.replaceAll((k, v) -> newID[blockOf[v]]);
+            table = newTable; row_len = count;
+            end_state_type = newEnd; start_state = newStart;
+        }
+
+        private int target(int s, int c)
+        {
+            // 非法状态与死状态row_len对应
+            if(s == row_len || table[s][c] == ILLEGALSTATE)
+                return row_len;
+            return table[s][c];
+        }
+
+        private void createDFATable()
+        {
+            // 从初始状态集开始，对每个字符等价类求读入后的状态集，并将其作为新的状态(如果之前没有的话)，不断构造dfa状态表直到不再有新状态出现
+            ArrayList<StateSet> sets = new ArrayList<>(); StateSet start = graph.getStart();
+            start_state.add(this.row_len); stateMap.put(start, row_len++); sets.add(start);
+
+            StateSet pos, actset; Integer next, type;
+            for(int posid=0;posid<row_len;posid++) {
+                pos = sets.get(posid);
+                if(posid == table.length)
+                    table = Arrays.copyOf(table, table.length * 2);             // 状态表按需增长
+                table[posid] = new int[column_len];
+                // 判别当前状态是否包含初态或终态
+                if (graph.containsStart(pos))
+                    this.start_state.add(posid);
+                if ((type = graph.getEndingType(pos)) != null)
+                    end_state_type.put(posid, type);
+                for(int i=0;i<column_len;i++) {
+                    actset = graph.step(pos, i);
+                    if(actset.isEmpty()) {
+                        // 动作集为空，则该动作非法
+                        table[posid][i] = ILLEGALSTATE;
+                    } else {
+                        // 若新状态，则将其加入状态列表，并创建映射
+                        next = stateMap.putIfAbsent(actset, row_len);
+                        if (next == null) {
+                            sets.add(actset);
+                            next = row_len++;
+                        }
+                        table[posid][i] = next;                                 // 设置转移后的状态值
+                    }
+                }
+            }
+        }
+
+        private void createDFATableParallel(ForkJoinPool pool)
+        {
+            // 按层展开：同一层未展开的状态集在线程池中并行求各等价类的后继，后继经并发的驻留表去重，
+            // 再由本线程按(状态, 等价类)的顺序编号，因此编号与createDFATable逐个展开时一致
+            ArrayList<StateSet> sets = new ArrayList<>(); StateSet start = graph.getStart();
+            ConcurrentHashMap<StateSet, StateSet> interned = new ConcurrentHashMap<>();
+            start_state.add(this.row_len); stateMap.put(start, row_len++); sets.add(start);
+            interned.put(start, start);
+
+            StateSet actset; Integer next, type; int lo = 0, hi;
+            while(lo < row_len) {
+                hi = row_len;
+                StateSet[][] steps = new StateSet[hi - lo][];
+                pool.invoke(new StepTask(sets, interned, steps, lo, 0, hi - lo));
+                if(hi > table.length)
+                    table = Arrays.copyOf(table, Math.max(table.length * 2, hi));
+                for(int posid=lo;posid<hi;posid++) {
+                    StateSet pos = sets.get(posid);
+                    table[posid] = new int[column_len];
+                    if (graph.containsStart(pos))
+                        this.start_state.add(posid);
+                    if ((type = graph.getEndingType(pos)) != null)
+                        end_state_type.put(posid, type);
+                    for(int i=0;i<column_len;i++) {
+                        actset = steps[posid - lo][i];
+                        if(actset == null) {
+                            table[posid][i] = ILLEGALSTATE;
+                        } else {
+                            next = stateMap.putIfAbsent(actset, row_len);
+                            if (next == null) {
+                                sets.add(actset);
+                                next = row_len++;
+                            }
+                            table[posid][i] = next;
+                        }
+                    }
+                }
+                lo = hi;
+            }
+        }
+
+        // 并行求一层状态集的后继，区间过大时对半拆分
+        private class StepTask extends RecursiveAction
+        {
+            private static final long serialVersionUID = 1L;
+            private static final int THRESHOLD = 8;                             // 不再拆分的状态数
+            private final ArrayList<StateSet> sets;                             // 已编号的状态集，本层只读
+            private final ConcurrentHashMap<StateSet, StateSet> interned;       // 后继状态集的驻留表，相同的集合只保留一份
+            private final StateSet[][] steps;                                   // steps[状态 - base][等价类]，为空表示非法
+            private final int base, from, to;
+
+            StepTask(ArrayList<StateSet> sets, ConcurrentHashMap<StateSet, StateSet> interned, StateSet[][] steps,
+                     int base, int from, int to)
+            {
+                this.sets = sets; this.interned = interned; this.steps = steps;
+                this.base = base; this.from = from; this.to = to;
+            }
+
+            protected void compute()
+            {
+                if(to - from > THRESHOLD) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new StepTask(sets, interned, steps, base, from, mid),
+                              new StepTask(sets, interned, steps, base, mid, to));
+                    return;
+                }
+                StateSet pos, actset, prev;
+                for(int k=from;k<to;k++) {
+                    pos = sets.get(base + k);
+                    StateSet[] row = new StateSet[column_len];
+                    for(int i=0;i<column_len;i++) {
+                        actset = graph.step(pos, i);
+                        if(actset.isEmpty())
+                            continue;
+                        prev = interned.putIfAbsent(actset, actset);
+                        row[i] = prev == null ? actset : prev;
+                    }
+                    steps[k] = row;
+                }
+            }
+        }
+
+        private void compileTable()
+        {
+            // 把在所有状态下转移都相同的等价类合并，使转移表只按合并后的等价类存放
+            CharClass base = graph.getClasses();
+            int n = base.size(); int[] remap = new int[n];
+            HashMap<List<Integer>, Integer> merged = new HashMap<>(); ArrayList<Integer> vector; Integer cls;
+            ArrayList<List<Integer>> vectors = new ArrayList<>();
+            for(int c=0;c<n;c++) {
+                vector = new ArrayList<>(row_len);
+                for(int pos=0;pos<row_len;pos++)
+                    vector.add(table[pos][c]);
+                if((cls = merged.get(vector)) == null) {
+                    merged.put(vector, cls = vectors.size());
+                    vectors.add(vector);
+                }
+                remap[c] = cls;
+            }
+            classes = base.remap(remap, vectors.size());
+            class_len = vectors.size();
+            trans = new int[row_len * class_len];
+            for(int c=0;c<class_len;c++)
+                for(int pos=0;pos<row_len;pos++)
+                    trans[pos * class_len + c] = vectors.get(c).get(pos);
+        }
     }
 
-    public boolean isLegalState()
+    public Cursor newCursor()
     {
-        return pos_state != ILLEGALSTATE;
+        return new Cursor();
     }
 
-    public void action(char ch)
+    // 匹配位置，每个线程使用各自的Cursor
+    public class Cursor
     {
-        // 需要当前状态是否合法，是否有匹配该字符的规则存在，特别的，要考虑\c \d \w以及其他转义字符情况三种情况
-        String s;
-        if(specialCh[ch])
-            s = "\\" + ch;
-        else if(ch == '\n')
-            s = "\\n";
-        else if(ch == '\t')
-            s = "\\t";
-        else
-            s = "" + ch;
-        int col = regularMap.indexOf(s), pos = pos_state;
-        int _c = regularMap.indexOf("\\c"), _d = regularMap.indexOf("\\d"), _w = regularMap.indexOf("\\w");
-        boolean isLetter = Character.isLetter(ch), isDigit = Character.isDigit(ch);
-
-        if(!isLegalState())
-            throw new IllegalArgumentException("illegal pos state:" + pos);
-        if(col < 0 || table[pos][col] == ILLEGALSTATE) {
-            if(isLetter) {
-                if(_c >= 0 && table[pos][_c] != ILLEGALSTATE)
-                    pos_state = table[pos][_c];
-                else if(_w >= 0 && table[pos][_w] != ILLEGALSTATE)
-                    pos_state = table[pos][_w];
-                else
-                    pos_state = ILLEGALSTATE;
-            } else if(isDigit) {
-                if(_d >= 0 && table[pos][_d] != ILLEGALSTATE)
-                    pos_state = table[pos][_d];
-                else if(_w >= 0 && table[pos][_w] != ILLEGALSTATE)
-                    pos_state = table[pos][_w];
-                else
-                    pos_state = ILLEGALSTATE;
-            } else
-                pos_state = ILLEGALSTATE;
+        private int pos_state;                                              // 当前状态
+
+        private Cursor()
+        {
+            reset();
         }
-        else
-            pos_state = table[pos][col];
-    }
 
-    public int match(String s)
-    {
-        reset();
-        char[] sa = s.toCharArray(); int p = 0;
-        while(isLegalState() && p < sa.length)
-            action(sa[p++]);
-        if(isLegalState())
-            return p;
-        return p - 1;
+        public DFA getDFA()
+        {
+            return DFA.this;
+        }
+
+        public void reset()
+        {
+            pos_state = 0;
+        }
+
+        public Integer getEndingType()
+        {
+            return isEndingState() ? end_types[pos_state] : null;
+        }
+
+        public boolean isEndingState()
+        {
+            return pos_state != ILLEGALSTATE && end_types[pos_state] != 0;
+        }
+
+        public boolean isLegalState()
+        {
+            return pos_state != ILLEGALSTATE;
+        }
+
+        public void action(char ch)
+        {
+            if(!isLegalState())
+                throw new IllegalArgumentException("illegal pos state:" + pos_state);
+            pos_state = trans[pos_state * class_len + classes.classOf(ch)];
+        }
+
+        public int skip(char[] buf, int from, int to)
+        {
+            // 跳过buf[from, to)中使当前状态停留在自环上的一段字符，返回第一个不在自环上的位置
+            if(pos_state == ILLEGALSTATE || !has_loop[pos_state])
+                return from;
+            int base = pos_state * class_len;
+            while(from < to && loops[base + classes.classOf(buf[from])])
+                from++;
+            return from;
+        }
+
+        public int match(String s)
+        {
+            reset();
+            int p = 0, len = s.length();
+            while(isLegalState() && p < len) {
+                action(s.charAt(p++));
+                if(isLegalState() && has_loop[pos_state])
+                    while(p < len && loops[pos_state * class_len + classes.classOf(s.charAt(p))])
+                        p++;
+            }
+            if(isLegalState())
+                return p;
+            return p - 1;
+        }
     }
 
     public static void main(String[] args)
     {
-        DFA d = new DFA(
+        Builder builder = new Builder(
                 new String[] {"(_|\\c)(\\w|_)*", "\\d+", "\\+|-|\\*|/|\\(|\\)|=|.|,|#|;", " |\\t", "\\n", "a*"},
-                new int[] {-2, -3, -4, -5, -6, -7}
+                new int[] {-2, -3, -4, -5, -6, -7}, false, null
         );
+        DFA d = new DFA(builder);
         d.printTable();
         System.out.println(d.regularMap);
-        System.out.println(d.stateMap);
+        for(Map.Entry<StateSet, Integer> e : builder.stateMap.entrySet()) {
+            StringJoiner sj = new StringJoiner(", ", "[", "]=" + e.getValue());
+            for(int b=e.getKey().nextSetBit(0);b>=0;b=e.getKey().nextSetBit(b + 1))
+                sj.add("" + builder.graph.getBitState(b));
+            System.out.println(sj);
+        }
         System.out.println(d.start_state);
         System.out.println(d.end_state_type);
     }
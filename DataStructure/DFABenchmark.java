@@ -0,0 +1,125 @@
+package DataStructure;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+// 测量nfa与dfa的构造代价随词法规则规模的增长，每项给出单次耗时、分配的字节数与得到的状态数
+public class DFABenchmark
+{
+    private static final int WARMUP = 3;                                    // 默认预热次数
+    private static final int ITERATIONS = 5;                                // 默认计时次数
+    private static final int[] SIZES = {10, 100, 1000, 5000};              // 合成规则的条数
+    private final int warmup, iterations;
+    private final com.sun.management.ThreadMXBean mx;                       // 用于统计本线程分配的字节数
+
+    public DFABenchmark(int warmup, int iterations)
+    {
+        this.warmup = warmup;
+        this.iterations = iterations;
+        this.mx = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        mx.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    public DFABenchmark(String[] args)
+    {
+        // 参数：[预热次数] [计时次数]
+        this(args.length > 0 ? Integer.parseInt(args[0]) : WARMUP, args.length > 1 ? Integer.parseInt(args[1]) : ITERATIONS);
+    }
+
+    public void header()
+    {
+        System.out.format("%-16s%-14s%12s%14s  %s%n", "spec", "builder", "time(ms)", "alloc(MB)", "states (before minimize)");
+    }
+
+    public void runAll(String name, String[] regex, int[] ends)
+    {
+        run(name, "nfa", () -> {
+            new NFA(regex, ends);
+            return -1;
+        });
+        run(name, "dfa", () -> new DFA(regex, ends));
+        run(name, "dfa-direct", () -> new DFA(regex, ends, true));
+        run(name, "dfa-parallel", () -> new DFA(regex, ends, true, ForkJoinPool.commonPool()));
+    }
+
+    private void run(String spec, String builder, Supplier<Object> build)
+    {
+        // 取各次计时的中位数，分配量取平均，结果为dfa时同时给出最小化前后的状态数；
+        // 分配量只统计本线程，并行构造时工作线程上的分配不计在内
+        Object ret = null; long[] times = new long[iterations]; long bytes = 0, t, b;
+        long tid = Thread.currentThread().getId();
+        for(int i=0;i<warmup;i++)
+            build.get();
+        for(int i=0;i<iterations;i++) {
+            b = mx.getThreadAllocatedBytes(tid);
+            t = System.nanoTime();
+            ret = build.get();
+            times[i] = System.nanoTime() - t;
+            bytes += mx.getThreadAllocatedBytes(tid) - b;
+        }
+        Arrays.sort(times);
+        String states = "";
+        if(ret instanceof DFA)
+            states = ((DFA)ret).getStateCount() + " (" + ((DFA)ret).getOriginStateCount() + ")";
+        System.out.format("%-16s%-14s%12.3f%14.1f  %s%n", spec, builder, times[iterations / 2] / 1e6,
+                bytes / (double)iterations / (1 << 20), states);
+    }
+
+    static String[] literals(int n, int minLen, int maxLen, long seed)
+    {
+        // n条随机的小写字母串，每三条中有一条以数字闭包结尾，以免dfa退化为trie
+        Random r = new Random(seed); String[] ret = new String[n]; StringBuilder sb = new StringBuilder();
+        for(int i=0;i<n;i++) {
+            sb.setLength(0);
+            int len = minLen + r.nextInt(maxLen - minLen + 1);
+            for(int j=0;j<len;j++)
+                sb.append((char)('a' + r.nextInt(26)));
+            if(i % 3 == 0)
+                sb.append("\\d*");
+            ret[i] = sb.toString();
+        }
+        return ret;
+    }
+
+    static String[] nested(int n, int depth)
+    {
+        // 每条规则为depth层嵌套的(x(y|z)*)形式
+        String[] ret = new String[n];
+        for(int i=0;i<n;i++) {
+            StringBuilder sb = new StringBuilder();
+            for(int d=0;d<depth;d++)
+                sb.append('(').append((char)('a' + (i + d) % 26));
+            for(int d=0;d<depth;d++)
+                sb.append('(').append((char)('a' + (i * 7 + d) % 26)).append('|').append((char)('a' + (i + d * 3) % 26))
+                  .append(")*)");
+            ret[i] = sb.toString();
+        }
+        return ret;
+    }
+
+    static int[] ends(int n)
+    {
+        int[] ret = new int[n];
+        for(int i=0;i<n;i++)
+            ret[i] = -2 - i;
+        return ret;
+    }
+
+    public void runSynthetic()
+    {
+        // 合成的规则集，具体词法分析器的规则由使用本类的一方另行调用runAll加入
+        for(int n : SIZES)
+            runAll("literals-" + n, literals(n, 3, 10, n), ends(n));
+        runAll("long-10x2000", literals(10, 2000, 2000, 1), ends(10));
+        runAll("nested-20x50", nested(20, 50), ends(20));
+    }
+
+    public static void main(String[] args)
+    {
+        DFABenchmark bm = new DFABenchmark(args);
+        bm.header();
+        bm.runSynthetic();
+    }
+}
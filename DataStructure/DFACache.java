@@ -0,0 +1,185 @@
+package DataStructure;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+public class DFACache
+{
+    private static final int MAGIC = 0x50444641;                           // "PDFA"
+    private static final int VERSION = 3;                                   // 格式版本，格式或自动机的构造方式改动时需递增
+    private static final int KEY_LEN = 32;                                  // SHA-256摘要长度
+    private final Path dir;                                                 // 缓存目录
+
+    public DFACache(String dir)
+    {
+        if(dir == null)
+            throw new NullPointerException("cache dir cannot be null");
+        this.dir = Paths.get(dir);
+    }
+
+    public DFA get(String[] regex, int[] ends)
+    {
+        // 以正则串与终止类型的摘要为键，命中则直接映射读入，否则重新构造并写回缓存
+        byte[] key = key(regex, ends);
+        Path file = dir.resolve(toHex(key, 16) + ".dfa");
+        DFA dfa = null;
+        if(Files.isRegularFile(file)) {
+            try {
+                dfa = read(file, key, regex);
+            } catch (IOException | RuntimeException e) {
+                dfa = null;                                                 // 缓存损坏时当作未命中处理
+            }
+        }
+        if(dfa != null)
+            return dfa;
+        dfa = new DFA(regex, ends);
+        try {
+            write(file, key, dfa);
+        } catch (IOException e) {
+            System.out.println("Warning: cannot write dfa cache " + file + ": " + e.getMessage());
+        }
+        return dfa;
+    }
+
+    static byte[] key(String[] regex, int[] ends)
+    {
+        if(regex.length != ends.length)
+            throw new IllegalArgumentException("regex's length must equal to ends");
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        // 版本号也计入摘要，构造方式改变后旧的缓存与生成的词法分析器都随之失效
+        ByteBuffer bb = ByteBuffer.allocate(8);
+        bb.putInt(VERSION).putInt(regex.length);
+        md.update(bb.array());
+        for(int i=0;i<regex.length;i++) {
+            byte[] r = regex[i].getBytes(StandardCharsets.UTF_8);
+            bb.clear();
+            bb.putInt(r.length).putInt(ends[i]);
+            md.update(bb.array());
+            md.update(r);
+        }
+        return md.digest();
+    }
+
+    public static String specKey(String[] regex, int[] ends)
+    {
+        // 正则规则与构造版本的摘要，可用于判断按某一规则生成的产物是否过期
+        return toHex(key(regex, ends), KEY_LEN);
+    }
+
+    private static String toHex(byte[] b, int len)
+    {
+        StringBuilder sb = new StringBuilder();
+        for(int i=0;i<len;i++)
+            sb.append(String.format("%02x", b[i]));
+        return sb.toString();
+    }
+
+    private DFA read(Path file, byte[] key, String[] regex) throws IOException
+    {
+        MappedByteBuffer bb;
+        try(FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            bb = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+        }
+        byte[] stored = new byte[KEY_LEN];
+        if(bb.getInt() != MAGIC || bb.getInt() != VERSION)
+            return null;
+        bb.get(stored);
+        if(!Arrays.equals(stored, key))
+            return null;
+        int rows = bb.getInt(), originRows = bb.getInt(), cols = bb.getInt(), n;
+        // 字符等价类映射：类个数、块索引、块内容
+        int classLen = bb.getInt();
+        int[] index = new int[bb.getInt()];
+        bb.asIntBuffer().get(index);
+        bb.position(bb.position() + 4 * index.length);
+        char[] blocks = new char[bb.getInt()];
+        bb.asCharBuffer().get(blocks);
+        bb.position(bb.position() + 2 * blocks.length);
+        n = bb.getInt();
+        ArrayList<String> regulars = new ArrayList<>(n);
+        for(int i=0;i<n;i++) {
+            char[] ca = new char[bb.getInt()];
+            bb.asCharBuffer().get(ca);
+            bb.position(bb.position() + 2 * ca.length);
+            regulars.add(new String(ca));
+        }
+        HashSet<Integer> start = new HashSet<>();
+        n = bb.getInt();
+        for(int i=0;i<n;i++)
+            start.add(bb.getInt());
+        HashMap<Integer, Integer> endType = new HashMap<>();
+        n = bb.getInt();
+        for(int i=0;i<n;i++)
+            endType.put(bb.getInt(), bb.getInt());
+        int[][] table = new int[rows][cols];
+        int[] trans = new int[rows * classLen];
+        IntBuffer ib = bb.asIntBuffer();
+        for(int i=0;i<rows;i++)
+            ib.get(table[i]);
+        ib.get(trans);
+        if(ib.hasRemaining())
+            return null;
+        return new DFA(regex, regulars, table, new CharClass(index, blocks, classLen), trans, endType, start, originRows);
+    }
+
+    private void write(Path file, byte[] key, DFA dfa) throws IOException
+    {
+        // 先写入临时文件再改名，避免并发运行时读到写了一半的缓存
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "dfa", ".tmp");
+        int[][] table = dfa.getTable(); CharClass classes = dfa.getClasses();
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(key);
+            out.writeInt(table.length);
+            out.writeInt(dfa.getOriginStateCount());
+            out.writeInt(table[0].length);
+            out.writeInt(classes.size());
+            out.writeInt(classes.getIndex().length);
+            for(int i : classes.getIndex())
+                out.writeInt(i);
+            out.writeInt(classes.getBlocks().length);
+            for(char c : classes.getBlocks())
+                out.writeChar(c);
+            out.writeInt(dfa.getRegulars().size());
+            for(String r : dfa.getRegulars()) {
+                out.writeInt(r.length());
+                out.writeChars(r);
+            }
+            out.writeInt(dfa.getStartState().size());
+            for(int s : dfa.getStartState())
+                out.writeInt(s);
+            out.writeInt(dfa.getEndStateType().size());
+            for(Map.Entry<Integer, Integer> e : dfa.getEndStateType().entrySet()) {
+                out.writeInt(e.getKey());
+                out.writeInt(e.getValue());
+            }
+            for(int[] row : table)
+                for(int t : row)
+                    out.writeInt(t);
+            for(int t : dfa.getTrans())
+                out.writeInt(t);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package DataStructure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 在文件中查找所有与dfa匹配的单词，按最左最长的规则一次扫描，文件以ISO-8859-1的单字节字符读入
+public class DFASearcher
+{
+    private static final int ILLEGALSTATE = -1;                             // 状态机的非法状态
+    private static final long WINDOW = 1L << 28;                            // 每次映射的文件窗口大小
+    private final int[] trans;                                              // dfa的扁平化状态转移表
+    private final int[] end_types;                                          // 各状态的终止类型，0表示非终态
+    private final int class_len;                                            // 等价类个数
+    private final int[] byteClass;                                          // 单字节字符到等价类的映射
+    private final long window;                                              // 映射窗口大小
+    private ByteBuffer buf;                                                 // 当前映射的窗口
+    private long buf_start, buf_end;                                        // 当前窗口在文件中的范围
+    private FileChannel channel;                                            // 正在扫描的文件
+
+    // 每找到一个单词回调一次，参数均为基本类型，匹配过程中不分配对象
+    public interface MatchHandler
+    {
+        void match(int type, long start, long end);                         // 终止类型与单词在文件中的范围[start, end)
+    }
+
+    public DFASearcher(DFA dfa)
+    {
+        this(dfa, WINDOW);
+    }
+
+    public DFASearcher(DFA dfa, long window)
+    {
+        if(window <= 0 || window > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("illegal window size:" + window);
+        this.trans = dfa.getTrans();
+        this.end_types = dfa.getEndTypes();
+        this.class_len = dfa.getClassCount();
+        this.window = window;
+        byteClass = new int[256];
+        for(int b=0;b<256;b++)
+            byteClass[b] = dfa.getClasses().classOf((char)b);
+    }
+
+    public void findAll(Path file, MatchHandler handler) throws IOException
+    {
+        // 文件按窗口分段映射，单词跨越窗口时重新映射，因此文件大小不受堆大小限制
+        try(FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel = fc;
+            buf = null; buf_start = buf_end = 0;
+            scan(fc.size(), handler);
+        } finally {
+            channel = null;
+            buf = null;
+        }
+    }
+
+    public void findAll(ByteBuffer bb, MatchHandler handler)
+    {
+        // 扫描bb中position到limit之间的内容，报告的位置相对于position
+        buf = bb.slice();
+        buf_start = 0; buf_end = buf.limit();
+        try {
+            scan(buf_end, handler);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);                             // 内存中的缓冲区不会重新映射
+        } finally {
+            buf = null;
+        }
+    }
+
+    private void scan(long size, MatchHandler handler) throws IOException
+    {
+        // 从start起尽量向后转移，记下最后一次到达终态的位置；有匹配则从其结尾继续，否则从下一个字符重新开始
+        long start = 0, p, last_end; int state, last_type, t;
+        while(start < size) {
+            state = 0; p = start; last_end = -1; last_type = 0;
+            while(p < size) {
+                state = trans[state * class_len + byteClass[byteAt(p, start) & 0xFF]];
+                if(state == ILLEGALSTATE)
+                    break;
+                p++;
+                if((t = end_types[state]) != 0) {
+                    last_end = p; last_type = t;
+                }
+            }
+            if(last_end > start) {
+                handler.match(last_type, start, last_end);
+                start = last_end;
+            } else
+                start++;
+        }
+    }
+
+    private byte byteAt(long p, long from) throws IOException
+    {
+        if(p < buf_start || p >= buf_end) {
+            // 只有扫描文件时才会越出窗口，尽量从本次匹配的起点from重新映射，使回退到匹配结尾时不必再次映射
+            long base = p - from < window ? from : p, len = Math.min(window, channel.size() - base);
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, base, len);
+            buf_start = base; buf_end = base + len;
+        }
+        return buf.get((int)(p - buf_start));
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        DFA d = new DFA(new String[] {"[_\\c][_\\w]*", "\\d+", "[-+*/()=.,#;<>!:]|<=|>=|:=|\\|\\||&&"},
+                new int[] {-2, -3, -4});
+        long[] count = new long[3];
+        new DFASearcher(d).findAll(java.nio.file.Paths.get(args[0]), (type, start, end) -> count[-2 - type]++);
+        System.out.println("ident:" + count[0] + " number:" + count[1] + " operator:" + count[2]);
+    }
+}
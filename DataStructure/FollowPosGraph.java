@@ -0,0 +1,181 @@
+package DataStructure;
+
+import java.util.*;
+
+// 由正则语法树的nullable、firstpos、lastpos与followpos直接给出dfa的状态集，不经过nfa与空闭包
+class FollowPosGraph implements StateGraph
+{
+    private final ArrayList<String> regularMap;                             // 规则集
+    private final HashMap<String, Integer> columnIndex;                     // 规则名到规则列的映射
+    private final int ends_len;                                             // 终止位置数，状态集中前ends_len位表示各正则末尾的终止位置
+    private final int pos_len;                                              // 位置总数
+    private final int[] bitState;                                           // 终止位置对应其终止类型，其余位置对应叶结点的编号
+    private final int[] column;                                             // 各叶结点位置所属的规则列
+    private final StateSet[] follow;                                        // 各位置的followpos
+    private final StateSet start;                                           // 初始状态集，即整个正则的firstpos
+    private final CharClass classes;                                        // 字符到等价类的映射
+    private final int[][] candidates;                                       // 各等价类所属的全部规则列
+    private final boolean[][] inClass;                                      // inClass[等价类][规则列]表示该规则列是否属于该等价类
+    private int next_pos;                                                   // 下一个叶结点的位置
+    private boolean nullable;                                               // 最近求值的子树能否匹配空串
+    private StateSet first, last;                                           // 最近求值的子树的firstpos与lastpos
+
+    FollowPosGraph(String[] regex, int[] ends)
+    {
+        // 每条正则末尾连接一个终止位置，终止位置按终止类型从小到大占据低位，叶结点依次排在其后
+        if(regex.length != ends.length)
+            throw new IllegalArgumentException("regex's length must equal to ends");
+        RegexNode[] trees = new RegexNode[regex.length]; int leaves = 0;
+        for(int i=0;i<regex.length;i++) {
+            if(ends[i] >= 0)
+                throw new IllegalArgumentException(ends[i] + " end state cannot be passive");
+            trees[i] = RegexParser.parse(regex[i]);
+            leaves += countLeaves(trees[i]);
+        }
+        int[] sorted = ends.clone(); HashMap<Integer, Integer> endBit = new HashMap<>();
+        Arrays.sort(sorted);
+        ends_len = ends.length; pos_len = ends_len + leaves;
+        bitState = new int[pos_len]; column = new int[pos_len]; follow = new StateSet[pos_len];
+        for(int i=0;i<ends_len;i++) {
+            endBit.put(sorted[i], i);
+            bitState[i] = sorted[i];
+            column[i] = -1;
+        }
+        regularMap = new ArrayList<>();
+        columnIndex = new HashMap<>();
+        next_pos = ends_len;
+        start = new StateSet(pos_len);
+        for(int i=0;i<trees.length;i++) {
+            visit(trees[i]);
+            int e = endBit.get(ends[i]);
+            for(int p=last.nextSetBit(0);p>=0;p=last.nextSetBit(p + 1))
+                follow[p].set(e);
+            start.or(first);
+            if(nullable)
+                start.set(e);
+        }
+        ArrayList<int[]> cands = new ArrayList<>();
+        classes = CharClass.of(regularMap, cands);
+        candidates = cands.toArray(new int[0][]);
+        inClass = new boolean[candidates.length][regularMap.size()];
+        for(int c=0;c<candidates.length;c++)
+            for(int col : candidates[c])
+                inClass[c][col] = true;
+        first = last = null;
+    }
+
+    private static int countLeaves(RegexNode node)
+    {
+        if(node.type == RegexNode.LEAF)
+            return 1;
+        int ret = 0;
+        for(RegexNode child : node.children)
+            ret += countLeaves(child);
+        return ret;
+    }
+
+    private void visit(RegexNode node)
+    {
+        // 后序求值，结果放在nullable、first、last中，同时把连接与闭包产生的followpos记入follow
+        StateSet f, l; boolean n;
+        switch(node.type) {
+            case RegexNode.LEAF:
+                int p = next_pos++;
+                Integer col = columnIndex.get(node.leaf);
+                if(col == null) {
+                    columnIndex.put(node.leaf, col = regularMap.size());
+                    regularMap.add(node.leaf);
+                }
+                column[p] = col; bitState[p] = p - ends_len; follow[p] = new StateSet(pos_len);
+                nullable = false;
+                first = new StateSet(pos_len); first.set(p);
+                last = new StateSet(pos_len); last.set(p);
+                break;
+            case RegexNode.EMPTY:
+                nullable = true;
+                first = new StateSet(pos_len);
+                last = new StateSet(pos_len);
+                break;
+            case RegexNode.OR:
+                n = false; f = new StateSet(pos_len); l = new StateSet(pos_len);
+                for(RegexNode child : node.children) {
+                    visit(child);
+                    n |= nullable; f.or(first); l.or(last);
+                }
+                nullable = n; first = f; last = l;
+                break;
+            case RegexNode.CONCAT:
+                n = true; f = new StateSet(pos_len); l = new StateSet(pos_len);
+                for(RegexNode child : node.children) {
+                    visit(child);
+                    for(int q=l.nextSetBit(0);q>=0;q=l.nextSetBit(q + 1))
+                        follow[q].or(first);
+                    if(n)
+                        f.or(first);
+                    if(!nullable)
+                        l = new StateSet(pos_len);
+                    l.or(last);
+                    n &= nullable;
+                }
+                nullable = n; first = f; last = l;
+                break;
+            case RegexNode.STAR:
+            case RegexNode.PLUS:
+                visit(node.children.get(0));
+                for(int q=last.nextSetBit(0);q>=0;q=last.nextSetBit(q + 1))
+                    follow[q].or(first);
+                nullable |= node.type == RegexNode.STAR;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown regex node:" + node.type);
+        }
+    }
+
+    public ArrayList<String> getRegulars()
+    {
+        return this.regularMap;
+    }
+
+    public CharClass getClasses()
+    {
+        return this.classes;
+    }
+
+    public int[] getCandidates(int cls)
+    {
+        return this.candidates[cls];
+    }
+
+    public StateSet getStart()
+    {
+        return this.start;
+    }
+
+    public StateSet step(StateSet ss, int cls)
+    {
+        // 状态集中属于该等价类的叶结点的followpos之并即为下一状态集
+        StateSet ret = new StateSet(pos_len); boolean[] in = inClass[cls];
+        for(int p=ss.nextSetBit(ends_len);p>=0;p=ss.nextSetBit(p + 1))
+            if(in[column[p]])
+                ret.or(follow[p]);
+        return ret;
+    }
+
+    public Integer getEndingType(StateSet ss)
+    {
+        // 终止位置位于低位，第一个置位的终止位置即为该状态集的终止类型
+        int b = ss.nextSetBit(0);
+        return b >= 0 && b < ends_len ? bitState[b] : null;
+    }
+
+    public boolean containsStart(StateSet ss)
+    {
+        // 位置集没有单独的初始状态，初始状态集总是dfa的0号状态
+        return false;
+    }
+
+    public int getBitState(int bit)
+    {
+        return this.bitState[bit];
+    }
+}
@@ -0,0 +1,170 @@
+package DataStructure;
+
+import java.util.*;
+
+public class LazyDFA
+{
+    private static final int ILLEGALSTATE = -1;                             // 状态机的非法状态
+    private static final int UNKNOWN = -2;                                  // 尚未计算的转移
+    private static final int DEFAULT_CAPACITY = 1024;                       // 默认缓存的状态数
+    private static final int THRASH_RATIO = 4;                              // 两次清空间平均每个状态处理的字符数低于此值视为颠簸
+    private static final int MAX_THRASH = 3;                                // 连续颠簸达到此次数后改用nfa模拟
+    private final String[] REGEX;                                           // 等价的正则表达式
+    private final NFAGraph graph;                                           // nfa的紧凑表示
+    private final int capacity;                                             // 缓存的状态数上限
+    private final CharClass classes;                                        // 字符到等价类的映射
+    private final int class_len;                                            // 等价类个数
+    private HashMap<StateSet, Integer> stateMap;                            // 已缓存的状态集到状态编号的映射
+    private StateSet[] sets;                                                // 各缓存状态对应的状态集
+    private int[] endType;                                                  // 各缓存状态的终止类型，0表示非终态
+    private int[] trans;                                                    // 已计算的转移，trans[state * class_len + 等价类]
+    private int size;                                                       // 已缓存的状态数
+    private int generation;                                                 // 缓存被清空的次数
+    private long steps;                                                     // 自上次清空以来处理的字符数
+    private int thrash;                                                     // 连续颠簸的次数
+    private boolean fallback;                                               // 是否已退化为nfa模拟
+    private int pos_state;                                                  // 当前状态的缓存编号
+    private StateSet pos_set;                                               // 退化为nfa模拟后的当前状态集
+
+    public LazyDFA(String[] regex, int[] ends)
+    {
+        this(regex, ends, DEFAULT_CAPACITY);
+    }
+
+    public LazyDFA(String[] regex, int[] ends, int capacity)
+    {
+        if(capacity < 2)
+            throw new IllegalArgumentException("capacity cannot smaller than 2:" + capacity);
+        for(int i : ends)
+            if(i == ILLEGALSTATE)
+                throw new IllegalArgumentException("end state cannot contains ILLEGALSTATE:" + ILLEGALSTATE);
+        REGEX = regex.clone();
+        graph = new NFAGraph(new NFA(REGEX, ends));
+        this.capacity = capacity;
+        classes = graph.getClasses();
+        class_len = classes.size();
+        stateMap = new HashMap<>();
+        sets = new StateSet[capacity];
+        endType = new int[capacity];
+        trans = new int[capacity * class_len];
+        intern(graph.getStart());
+        reset();
+    }
+
+    public String[] getRegex()
+    {
+        return this.REGEX;
+    }
+
+    public int getStateCount()
+    {
+        return this.size;
+    }
+
+    public boolean isFallback()
+    {
+        return this.fallback;
+    }
+
+    private int intern(StateSet ss)
+    {
+        // 状态集第一次到达时才物化为dfa状态，缓存满则整体清空，初始状态总是编号0
+        Integer id = stateMap.get(ss);
+        if(id != null)
+            return id;
+        if(size == capacity) {
+            flush();
+            if(fallback)
+                return ILLEGALSTATE;
+            intern(graph.getStart());
+        }
+        Integer type = graph.getEndingType(ss);
+        sets[size] = ss;
+        endType[size] = type == null ? 0 : type;
+        Arrays.fill(trans, size * class_len, (size + 1) * class_len, UNKNOWN);
+        stateMap.put(ss, size);
+        return size++;
+    }
+
+    private void flush()
+    {
+        // 两次清空之间处理的字符太少说明缓存在颠簸，多次颠簸后放弃缓存
+        thrash = steps < (long)capacity * THRASH_RATIO ? thrash + 1 : 0;
+        steps = 0; generation++;
+        stateMap.clear(); size = 0;
+        Arrays.fill(sets, null);
+        if(thrash >= MAX_THRASH) {
+            fallback = true;
+            stateMap = null; sets = null; endType = null; trans = null;
+        }
+    }
+
+    public void reset()
+    {
+        pos_state = 0;
+        pos_set = graph.getStart();
+    }
+
+    public Integer getEndingType()
+    {
+        if(fallback)
+            return pos_set == null ? null : graph.getEndingType(pos_set);
+        return pos_state == ILLEGALSTATE || endType[pos_state] == 0 ? null : endType[pos_state];
+    }
+
+    public boolean isEndingState()
+    {
+        return getEndingType() != null;
+    }
+
+    public boolean isLegalState()
+    {
+        return fallback ? pos_set != null : pos_state != ILLEGALSTATE;
+    }
+
+    public void action(char ch)
+    {
+        if(!isLegalState())
+            throw new IllegalArgumentException("illegal pos state:" + pos_state);
+        steps++;
+        int t, cls = classes.classOf(ch);
+        if(!fallback && (t = trans[pos_state * class_len + cls]) != UNKNOWN) {
+            pos_state = t;
+            return;
+        }
+        // 转移未知时模拟nfa走一步，再把结果物化为缓存状态
+        StateSet cur = fallback ? pos_set : sets[pos_state], next = graph.step(cur, cls);
+        if(next.isEmpty())
+            next = null;
+        if(!fallback) {
+            int from = pos_state, gen = generation;
+            t = next == null ? ILLEGALSTATE : intern(next);
+            if(!fallback && gen == generation)
+                trans[from * class_len + cls] = t;                            // 清空后原状态已失效，不再记录
+            pos_state = t;
+        }
+        pos_set = next;
+    }
+
+    public int match(String s)
+    {
+        reset();
+        int p = 0, len = s.length();
+        while(isLegalState() && p < len)
+            action(s.charAt(p++));
+        if(isLegalState())
+            return p;
+        return p - 1;
+    }
+
+    public static void main(String[] args)
+    {
+        LazyDFA d = new LazyDFA(
+                new String[] {"(_|\\c)(\\w|_)*", "\\d+", "\\+|-|\\*|/|\\(|\\)|=|.|,|#|;", " |\\t", "\\n", "a*"},
+                new int[] {-2, -3, -4, -5, -6, -7}, 4
+        );
+        for(String s : new String[] {"abc_1", "123", "+", "a", "aab", " ", "#x"})
+            System.out.println(s + ":" + d.match(s) + " " + d.getEndingType() + " states:" + d.getStateCount());
+        System.out.println("fallback:" + d.isFallback());
+    }
+}
@@ -0,0 +1,168 @@
+package DataStructure;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+public class LexerGenerator
+{
+    private final DFA dfa;                                                  // 待生成的状态机
+    private final String spec;                                              // 正则规则的摘要
+
+    public LexerGenerator(String[] regex, int[] ends)
+    {
+        this.dfa = new DFA(regex, ends);
+        this.spec = DFACache.specKey(regex, ends);
+    }
+
+    public String generate(String pkg, String className)
+    {
+        // 每个状态生成一段switch代码，字符等价类表以游程编码的字符串常量存放
+        StringBuilder sb = new StringBuilder();
+        CharClass classes = dfa.getClasses();
+        int rows = dfa.getStateCount(), cols = classes.size(); int[] trans = dfa.getTrans();
+        if(pkg != null && !pkg.isEmpty())
+            sb.append("package ").append(pkg).append(";\n\n");
+        sb.append("/**\n");
+        sb.append(" * 由 DataStructure.LexerGenerator 根据以下词法规则生成的状态机，请勿手工修改\n");
+        for(String r : dfa.getRegex())
+            sb.append(" * <pre>").append(r.replace("&", "&amp;").replace("\\", "&#92;").replace("<", "&lt;").replace(">", "&gt;")
+                    .replace("*/", "*&#47;")).append("</pre>\n");
+        sb.append(" */\n");
+        sb.append("public final class ").append(className).append(" {\n");
+        sb.append("\t/**\n\t * 词法规则及自动机构造版本的摘要，与当前的不一致时说明本类已过期\n\t */\n");
+        sb.append("\tpublic static final String SPEC = \"").append(spec).append("\";\n\n");
+        sb.append("\tpublic static final int ILLEGALSTATE = -1;\n");
+        sb.append("\tpublic static final int START = 0;\n");
+        sb.append("\tpublic static final int STATES = ").append(rows).append(";\n\n");
+        sb.append("\tprivate static final char[] INDEX = unpack(\n");
+        appendPacked(sb, toChars(classes.getIndex()));
+        sb.append("\t\t").append(classes.getIndex().length).append(");\n");
+        sb.append("\tprivate static final char[] BLOCKS = unpack(\n");
+        appendPacked(sb, classes.getBlocks());
+        sb.append("\t\t").append(classes.getBlocks().length).append(");\n\n");
+        sb.append("\tprivate ").append(className).append("() {\n\t}\n\n");
+
+        sb.append("\t/**\n\t * 字符所属的等价类\n\t */\n");
+        sb.append("\tpublic static int classOf(char ch) {\n");
+        sb.append("\t\treturn BLOCKS[INDEX[ch >>> 8] + (ch & 0xFF)];\n\t}\n\n");
+
+        sb.append("\t/**\n\t * 状态state读入字符ch后的状态，非法时返回ILLEGALSTATE\n\t */\n");
+        sb.append("\tpublic static int next(int state, char ch) {\n");
+        sb.append("\t\tswitch (state) {\n");
+        for(int s=0;s<rows;s++) {
+            // 目标相同的等价类合并为同一组case
+            LinkedHashMap<Integer, ArrayList<Integer>> byTarget = new LinkedHashMap<>();
+            for(int c=0;c<cols;c++)
+                if(trans[s * cols + c] != -1)
+                    byTarget.computeIfAbsent(trans[s * cols + c], k -> new ArrayList<>()).add(c);
+            sb.append("\t\tcase ").append(s).append(":\n");
+            if(byTarget.isEmpty()) {
+                sb.append("\t\t\treturn ILLEGALSTATE;\n");
+                continue;
+            }
+            sb.append("\t\t\tswitch (classOf(ch)) {\n");
+            for(Map.Entry<Integer, ArrayList<Integer>> e : byTarget.entrySet()) {
+                sb.append("\t\t\t");
+                for(int c : e.getValue())
+                    sb.append("case ").append(c).append(": ");
+                sb.append("return ").append(e.getKey()).append(";\n");
+            }
+            sb.append("\t\t\tdefault: return ILLEGALSTATE;\n\t\t\t}\n");
+        }
+        sb.append("\t\tdefault:\n\t\t\treturn ILLEGALSTATE;\n\t\t}\n\t}\n\n");
+
+        sb.append("\t/**\n\t * 从buf[from]起跳过使状态state停留在自环上的字符，返回第一个不在自环上的位置\n\t */\n");
+        sb.append("\tpublic static int skip(int state, char[] buf, int from, int to) {\n");
+        sb.append("\t\tswitch (state) {\n");
+        for(int s=0;s<rows;s++) {
+            ArrayList<Integer> self = new ArrayList<>();
+            for(int c=0;c<cols;c++)
+                if(trans[s * cols + c] == s)
+                    self.add(c);
+            if(self.isEmpty())
+                continue;
+            sb.append("\t\tcase ").append(s).append(":\n");
+            sb.append("\t\t\tfor (; from < to; from++) {\n");
+            sb.append("\t\t\t\tswitch (classOf(buf[from])) {\n");
+            sb.append("\t\t\t\t");
+            for(int c : self)
+                sb.append("case ").append(c).append(": ");
+            sb.append("continue;\n");
+            sb.append("\t\t\t\tdefault: return from;\n\t\t\t\t}\n\t\t\t}\n");
+            sb.append("\t\t\treturn from;\n");
+        }
+        sb.append("\t\tdefault:\n\t\t\treturn from;\n\t\t}\n\t}\n\n");
+
+        sb.append("\t/**\n\t * 状态state的终止类型，非终态返回0\n\t */\n");
+        sb.append("\tpublic static int endType(int state) {\n");
+        sb.append("\t\tswitch (state) {\n");
+        TreeMap<Integer, ArrayList<Integer>> byType = new TreeMap<>();
+        for(Map.Entry<Integer, Integer> e : new TreeMap<>(dfa.getEndStateType()).entrySet())
+            byType.computeIfAbsent(e.getValue(), k -> new ArrayList<>()).add(e.getKey());
+        for(Map.Entry<Integer, ArrayList<Integer>> e : byType.entrySet()) {
+            sb.append("\t\t");
+            for(int s : e.getValue())
+                sb.append("case ").append(s).append(": ");
+            sb.append("return ").append(e.getKey()).append(";\n");
+        }
+        sb.append("\t\tdefault: return 0;\n\t\t}\n\t}\n\n");
+
+        sb.append("\tprivate static char[] unpack(String packed, int len) {\n");
+        sb.append("\t\t// 游程编码：依次为重复次数与字符值\n");
+        sb.append("\t\tchar[] ret = new char[len];\n");
+        sb.append("\t\tint p = 0;\n");
+        sb.append("\t\tfor (int i = 0; i < packed.length(); i += 2)\n");
+        sb.append("\t\t\tfor (int n = packed.charAt(i); n > 0; n--)\n");
+        sb.append("\t\t\t\tret[p++] = packed.charAt(i + 1);\n");
+        sb.append("\t\treturn ret;\n\t}\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    public void write(String path, String pkg, String className) throws IOException
+    {
+        Files.write(Paths.get(path), generate(pkg, className).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static char[] toChars(int[] a)
+    {
+        char[] ret = new char[a.length];
+        for(int i=0;i<a.length;i++) {
+            if(a[i] > Character.MAX_VALUE)
+                throw new IllegalArgumentException("value too large to pack:" + a[i]);
+            ret[i] = (char)a[i];
+        }
+        return ret;
+    }
+
+    private static void appendPacked(StringBuilder sb, char[] a)
+    {
+        // 游程编码后按转义形式输出，每行一段字符串常量
+        StringBuilder line = new StringBuilder(); int i = 0, n;
+        while(i < a.length) {
+            n = 1;
+            while(i + n < a.length && a[i + n] == a[i] && n < Character.MAX_VALUE)
+                n++;
+            appendChar(line, (char)n);
+            appendChar(line, a[i]);
+            i += n;
+            if(line.length() >= 72) {
+                sb.append("\t\t\"").append(line).append("\" +\n");
+                line.setLength(0);
+            }
+        }
+        sb.append("\t\t\"").append(line).append("\",\n");
+    }
+
+    private static void appendChar(StringBuilder sb, char c)
+    {
+        // 小于256的字符用八进制转义，避免unicode转义在编译前被展开成换行或引号
+        if(c < 256)
+            sb.append('\\').append(Integer.toOctalString(c));
+        else
+            sb.append(String.format("\\u%04x", (int)c));
+    }
+}
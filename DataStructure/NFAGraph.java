@@ -0,0 +1,198 @@
+package DataStructure;
+
+import java.util.*;
+
+class NFAGraph implements StateGraph
+{
+    private final NFA NFA;                                                  // 对应的nfa
+    private final ArrayList<String> regularMap;                             // 规则集，不含空转移
+    private int ends_len;                                                   // nfa终态数，状态集中前ends_len位表示终态
+    private int[] bitState;                                                 // 状态集中的位到nfa状态的映射
+    private StateSet[] nullEnclosed;                                        // nfa各状态的空闭包
+    private StateSet start;                                                 // 包含初始状态的闭包
+    private CharClass classes;                                              // 字符到等价类的映射
+    private int[][] candidates;                                             // 各等价类所属的全部规则列
+    private int[][][] classMove;                                            // classMove[等价类][nfa状态]为各规则列后继的并集
+
+    NFAGraph(NFA nfa)
+    {
+        NFA = nfa;
+        regularMap = new ArrayList<>();
+        for(String s : NFA.getRegulars())
+            if(!s.contentEquals("null"))
+                regularMap.add(s);
+        calcClasses();
+        build();
+    }
+
+    private void calcClasses()
+    {
+        ArrayList<int[]> cands = new ArrayList<>();
+        classes = CharClass.of(regularMap, cands);
+        candidates = cands.toArray(new int[0][]);
+    }
+
+    private void build()
+    {
+        // nfa终态按从小到大的顺序占据状态集的低位，其余状态依次排在其后
+        int rows = NFA.getTable().getRowCount(); HashMap<Integer, Integer> endBit = new HashMap<>();
+        Integer[] ends = NFA.getEndState().toArray(new Integer[0]);
+        Arrays.sort(ends);
+        ends_len = ends.length; bitState = new int[ends_len + rows];
+        for(int i=0;i<ends_len;i++) {
+            endBit.put(ends[i], i);
+            bitState[i] = ends[i];
+        }
+        for(int i=0;i<rows;i++)
+            bitState[ends_len + i] = i;
+        // 预先取出各规则列下每个nfa状态的后继，再按等价类合并
+        int[][][] move = new int[regularMap.size()][][];
+        for(int c=0;c<move.length;c++)
+            move[c] = successors(NFA.getTable().getColumnByName(regularMap.get(c)), endBit, rows);
+        classMove = new int[candidates.length][][];
+        for(int c=0;c<candidates.length;c++)
+            classMove[c] = union(move, candidates[c], rows);
+        // 一次性计算各个状态的空闭包
+        calcEnclosed(successors(NFA.getTable().getColumnByName("null"), endBit, rows));
+        // 找到带初始状态的闭包，将其作为新的初始状态
+        for(StateSet ss : nullEnclosed)
+            if(ss.get(ends_len + NFA.getStartState())) {
+                start = ss;
+                break;
+            }
+    }
+
+    public ArrayList<String> getRegulars()
+    {
+        return this.regularMap;
+    }
+
+    public StateSet getStart()
+    {
+        return this.start;
+    }
+
+    public int getBitState(int bit)
+    {
+        return this.bitState[bit];
+    }
+
+    public boolean containsStart(StateSet ss)
+    {
+        return ss.get(ends_len + NFA.getStartState());
+    }
+
+    public Integer getEndingType(StateSet ss)
+    {
+        // 终态位于低位，第一个置位的终态即为该状态集的终止类型
+        int b = ss.nextSetBit(0);
+        return b >= 0 && b < ends_len ? bitState[b] : null;
+    }
+
+    public CharClass getClasses()
+    {
+        return this.classes;
+    }
+
+    public int[] getCandidates(int cls)
+    {
+        return this.candidates[cls];
+    }
+
+    public StateSet step(StateSet ss, int cls)
+    {
+        // 状态集读入一个等价类的字符后的状态集，为空表示非法
+        StateSet ret = new StateSet(bitState.length); int[][] acts = classMove[cls];
+        for(int s=ss.nextSetBit(ends_len);s>=0;s=ss.nextSetBit(s + 1)) {    // nfa终态无后继
+            for(int t : acts[s - ends_len]) {
+                if(ret.get(t))
+                    continue;
+                ret.set(t);
+                if(t >= ends_len)                                           // nfa终态无闭包
+                    ret.or(nullEnclosed[t - ends_len]);
+            }
+        }
+        return ret;
+    }
+
+    private int[][] union(int[][][] move, int[] cols, int rows)
+    {
+        // 只属于一个规则列的等价类直接共用该列的后继
+        if(cols.length == 1)
+            return move[cols[0]];
+        int[][] ret = new int[rows][]; TreeSet<Integer> ts = new TreeSet<>(); int k;
+        for(int i=0;i<rows;i++) {
+            ts.clear();
+            for(int c : cols)
+                for(int t : move[c][i])
+                    ts.add(t);
+            ret[i] = new int[ts.size()]; k = 0;
+            for(int t : ts)
+                ret[i][k++] = t;
+        }
+        return ret;
+    }
+
+    private int[][] successors(StateColumn sc, HashMap<Integer, Integer> endBit, int rows)
+    {
+        int[][] ret = new int[rows][]; int[] ts;
+        for(int i=0;i<rows;i++) {
+            ts = sc == null ? new int[0] : sc.getTargets(i);
+            for(int k=0;k<ts.length;k++)
+                ts[k] = ts[k] < 0 ? endBit.get(ts[k]) : ends_len + ts[k];
+            ret[i] = ts;
+        }
+        return ret;
+    }
+
+    private void calcEnclosed(int[][] eps)
+    {
+        // 用Tarjan算法求空转移图的强连通分量，分量按逆拓扑序产生，因此每个分量产生时其后继分量的闭包均已算好，
+        // 同一分量内的状态共享同一个闭包
+        int n = bitState.length, index = 0, sp = 0, cp, v, w, comps = 0;
+        int[] idx = new int[n], low = new int[n], comp = new int[n], stack = new int[n];
+        int[] call = new int[n], edge = new int[n];
+        boolean[] onStack = new boolean[n];
+        ArrayList<StateSet> closure = new ArrayList<>();
+        Arrays.fill(idx, -1);
+        for(int root=0;root<n;root++) {
+            if(idx[root] >= 0)
+                continue;
+            cp = 0; call[cp++] = root; edge[root] = 0;
+            idx[root] = low[root] = index++; stack[sp++] = root; onStack[root] = true;
+            while(cp > 0) {
+                v = call[cp - 1];
+                if(v >= ends_len && edge[v] < eps[v - ends_len].length) {
+                    w = eps[v - ends_len][edge[v]++];
+                    if(idx[w] < 0) {
+                        idx[w] = low[w] = index++; stack[sp++] = w; onStack[w] = true;
+                        edge[w] = 0; call[cp++] = w;
+                    } else if(onStack[w])
+                        low[v] = Math.min(low[v], idx[w]);
+                    continue;
+                }
+                cp--;
+                if(cp > 0)
+                    low[call[cp - 1]] = Math.min(low[call[cp - 1]], low[v]);
+                if(low[v] != idx[v])
+                    continue;
+                // v为分量的根，出栈得到整个分量并合并其成员与后继分量的闭包
+                StateSet cs = new StateSet(n); int top = sp;
+                do {
+                    w = stack[--sp]; onStack[w] = false; comp[w] = comps; cs.set(w);
+                } while(w != v);
+                for(int i=sp;i<top;i++) {
+                    w = stack[i];
+                    if(w >= ends_len)
+                        for(int t : eps[w - ends_len])
+                            if(comp[t] != comps && !onStack[t])
+                                cs.or(closure.get(comp[t]));
+                }
+                closure.add(cs); comps++;
+            }
+        }
+        nullEnclosed = new StateSet[n - ends_len];
+        for(int i=0;i<nullEnclosed.length;i++)
+            nullEnclosed[i] = closure.get(comp[ends_len + i]);
+    }
+}
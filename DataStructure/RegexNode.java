@@ -0,0 +1,54 @@
+package DataStructure;
+
+import java.util.ArrayList;
+
+public class RegexNode
+{
+    public static final int LEAF = 0;                                       // 单个规则，如a、\c、\+、[a-z_]
+    public static final int CONCAT = 1;                                     // 连接
+    public static final int OR = 2;                                         // 或
+    public static final int STAR = 3;                                       // 零次或多次
+    public static final int PLUS = 4;                                       // 一次或多次
+    public static final int EMPTY = 5;                                      // 空串
+
+    final int type;
+    final String leaf;                                                      // 叶结点对应的规则名
+    final ArrayList<RegexNode> children;
+
+    RegexNode(int type, String leaf)
+    {
+        this.type = type;
+        this.leaf = leaf;
+        this.children = new ArrayList<>();
+    }
+
+    public int getType()
+    {
+        return this.type;
+    }
+
+    public String getLeaf()
+    {
+        return this.leaf;
+    }
+
+    public ArrayList<RegexNode> getChildren()
+    {
+        return this.children;
+    }
+
+    public String toString()
+    {
+        switch(type) {
+            case LEAF: return leaf;
+            case EMPTY: return "()";
+            case STAR: return "(" + children.get(0) + ")*";
+            case PLUS: return "(" + children.get(0) + ")+";
+            default:
+                StringBuilder sb = new StringBuilder("(");
+                for(int i=0;i<children.size();i++)
+                    sb.append(i > 0 && type == OR ? "|" : "").append(children.get(i));
+                return sb.append(")").toString();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package DataStructure;
+
+public class RegexParser
+{
+    private final String regex;
+    private int pos;
+
+    private RegexParser(String regex)
+    {
+        this.regex = regex;
+        this.pos = 0;
+    }
+
+    public static RegexNode parse(String regex)
+    {
+        // 递归下降：or := and ('|' and)*，and := repeat*，repeat := atom ('*'|'+')*，atom := '(' or ')' | '[' class ']' | '\'x | x
+        if(regex == null)
+            throw new NullPointerException("regex cannot be null");
+        RegexParser p = new RegexParser(regex);
+        RegexNode ret = p.parseOr();
+        if(p.pos != regex.length())
+            throw new IllegalArgumentException("illegal regex:" + regex + " unmatched ) at " + p.pos);
+        return ret;
+    }
+
+    private RegexNode parseOr()
+    {
+        RegexNode first = parseAnd(), ret;
+        if(pos == regex.length() || regex.charAt(pos) != '|')
+            return first;
+        ret = new RegexNode(RegexNode.OR, null);
+        ret.children.add(first);
+        while(pos < regex.length() && regex.charAt(pos) == '|') {
+            pos++;
+            ret.children.add(parseAnd());
+        }
+        return ret;
+    }
+
+    private RegexNode parseAnd()
+    {
+        RegexNode ret = new RegexNode(RegexNode.CONCAT, null);
+        char ch;
+        while(pos < regex.length() && (ch = regex.charAt(pos)) != '|' && ch != ')')
+            ret.children.add(parseRepeat());
+        if(ret.children.isEmpty())
+            return new RegexNode(RegexNode.EMPTY, null);
+        return ret.children.size() == 1 ? ret.children.get(0) : ret;
+    }
+
+    private RegexNode parseRepeat()
+    {
+        RegexNode ret = parseAtom(), rep;
+        char ch;
+        while(pos < regex.length() && ((ch = regex.charAt(pos)) == '*' || ch == '+')) {
+            pos++;
+            rep = new RegexNode(ch == '*' ? RegexNode.STAR : RegexNode.PLUS, null);
+            rep.children.add(ret);
+            ret = rep;
+        }
+        return ret;
+    }
+
+    private RegexNode parseAtom()
+    {
+        char ch = regex.charAt(pos);
+        if(ch == '(') {
+            pos++;
+            RegexNode ret = parseOr();
+            if(pos == regex.length() || regex.charAt(pos) != ')')
+                throw new IllegalArgumentException("illegal regex:" + regex + " missing ) at " + pos);
+            pos++;
+            return ret;
+        }
+        if(ch == '[') {
+            // 字符类整体作为一条规则，到第一个未转义的]为止
+            int end = pos + 1;
+            while(end < regex.length() && regex.charAt(end) != ']')
+                end += regex.charAt(end) == '\\' ? 2 : 1;
+            if(end >= regex.length())
+                throw new IllegalArgumentException("illegal regex:" + regex + " missing ] at " + pos);
+            String rule = regex.substring(pos, end + 1);
+            CharSet.of(rule);                                               // 提前检查字符类的语法
+            pos = end + 1;
+            return new RegexNode(RegexNode.LEAF, rule);
+        }
+        if(ch == '\\') {
+            if(pos + 1 == regex.length())
+                throw new IllegalArgumentException("illegal regex:" + regex + " dangling \\ at " + pos);
+            pos += 2;
+            return new RegexNode(RegexNode.LEAF, regex.substring(pos - 2, pos));
+        }
+        pos++;                                                              // 开头的*或+按普通字符处理
+        return new RegexNode(RegexNode.LEAF, String.valueOf(ch));
+    }
+}
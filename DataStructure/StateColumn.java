@@ -2,23 +2,48 @@ package DataStructure;
 
 import java.util.TreeSet;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 
+// 以压缩行(CSR)形式存放的一列状态集，终态编号为负数，是否为终态由编号的正负决定
 public class StateColumn implements Cloneable
 {
     String cname;
-    ArrayList<TreeSet<State>> column;
+    private int rows;                                                       // 行数
+    private int[] rowStart;                                                 // 第i行的状态位于targets[rowStart[i], rowStart[i+1])
+    private int[] targets;                                                  // 各行按升序依次存放的状态编号
+    private boolean shared;                                                 // 数组是否与克隆出的列共享，共享时修改前先复制
 
     public StateColumn(String cname)
     {
         this.cname = cname;
-        this.column = new ArrayList<>();
+        this.rowStart = new int[8];
+        this.targets = new int[8];
     }
 
     public StateColumn(ArrayList<TreeSet<State>> column)
     {
-        this.cname = null;
-        this.column = column;
+        this((String)null);
+        for(TreeSet<State> ss : column)
+            this.append(ss);
+    }
+
+    StateColumn(String cname, int rows, int[] rowStart, int[] targets)
+    {
+        // 直接接管已按行分好的数组，行内排序去重后压紧
+        this.cname = cname;
+        this.rows = rows;
+        this.rowStart = rowStart;
+        this.targets = targets;
+        int len = 0, from, to;
+        for(int i=0;i<rows;i++) {
+            from = rowStart[i]; to = rowStart[i + 1];
+            Arrays.sort(targets, from, to);
+            rowStart[i] = len;
+            for(int k=from;k<to;k++)
+                if(k == from || targets[k] != targets[k - 1])
+                    targets[len++] = targets[k];
+        }
+        rowStart[rows] = len;
     }
 
     public String getName()
@@ -34,14 +59,23 @@ public class StateColumn implements Cloneable
 
     public int size()
     {
-        return this.column.size();
+        return this.rows;
     }
 
     public TreeSet<State> get(int index)
     {
-        if(index >= this.column.size() || index < 0)
-            throw new IndexOutOfBoundsException(index);
-        return this.column.get(index);
+        // 返回的是该行状态集的副本，修改它不会影响本列
+        check(index);
+        TreeSet<State> ret = new TreeSet<>();
+        for(int k=rowStart[index];k<rowStart[index + 1];k++)
+            ret.add(new State(targets[k], targets[k] < 0));
+        return ret;
+    }
+
+    int[] getTargets(int index)
+    {
+        check(index);
+        return Arrays.copyOfRange(targets, rowStart[index], rowStart[index + 1]);
     }
 
     public StateColumn clone()
@@ -51,71 +85,105 @@ public class StateColumn implements Cloneable
             o = (StateColumn)super.clone();
         } catch (CloneNotSupportedException e) {}
 
-        o.column = new ArrayList<>();
-        Iterator<State> stateIterator;
-        TreeSet<State> newSet;
-        for(TreeSet<State> ss : this.column)
-        {
-            stateIterator = ss.iterator();
-            newSet = new TreeSet<>();
-            while(stateIterator.hasNext())
-                newSet.add(stateIterator.next().clone());
-            o.column.add(newSet);
-        }
+        this.shared = o.shared = true;                                      // 两列共享数组，任一方修改时再复制
         return o;
     }
 
     public String toString()
     {
-        String str = "" + this.cname;
-        for(TreeSet<State> ss : this.column)
-            str = str + ss.toString();
-        return str;
+        StringBuilder sb = new StringBuilder("" + this.cname);
+        for(int i=0;i<rows;i++) {
+            sb.append('[');
+            for(int k=rowStart[i];k<rowStart[i + 1];k++)
+                sb.append(k > rowStart[i] ? ", " : "").append(targets[k]);
+            sb.append(']');
+        }
+        return sb.toString();
     }
 
     public boolean append(State s)
     {
         if(s.isEmptyState())                                     // 若添加的状态为空状态，则该动作不可行，添加一个空的集合
         {
-            this.column.add(new TreeSet<>());
+            reserve(1, 0);
+            rowStart[rows + 1] = rowStart[rows];
+            rows++;
             return true;
         }
-        TreeSet<State> ss = new TreeSet<>();
-        ss.add(s);
-        return this.column.add(ss);
+        reserve(1, 1);
+        targets[rowStart[rows]] = s.getS();
+        rowStart[rows + 1] = rowStart[rows] + 1;
+        rows++;
+        return true;
     }
 
     public boolean append(TreeSet<State> ss)
     {
         if(ss == null)
             throw new NullPointerException();
-        return this.column.add(ss);
+        reserve(1, ss.size());
+        int len = rowStart[rows];
+        for(State s : ss)
+            if(!s.isEmptyState())
+                targets[len++] = s.getS();
+        rowStart[++rows] = len;
+        return true;
     }
 
     public void appendAll(StateColumn c)
     {
         if(c == null)
             throw new NullPointerException();
-        this.column.addAll(c.column);
+        int n = c.rows, base = rowStart[rows], cnt = c.rowStart[n];
+        reserve(n, cnt);
+        System.arraycopy(c.targets, 0, targets, base, cnt);
+        for(int i=1;i<=n;i++)
+            rowStart[rows + i] = base + c.rowStart[i];
+        rows += n;
     }
 
     public boolean add(int index, State s)
     {
         if(s.isEmptyState())                            // 若待插入的状态为空状态，则无需操作
             return true;
-        return this.column.get(index).add(s);           // 返回真则代表原状态集中无此状态
+        check(index);
+        int pos = Arrays.binarySearch(targets, rowStart[index], rowStart[index + 1], s.getS());
+        if(pos >= 0)
+            return false;                               // 返回真则代表原状态集中无此状态
+        pos = -pos - 1;
+        reserve(0, 1);
+        System.arraycopy(targets, pos, targets, pos + 1, rowStart[rows] - pos);
+        targets[pos] = s.getS();
+        for(int i=index+1;i<=rows;i++)
+            rowStart[i]++;
+        return true;
     }
 
     public TreeSet<State> remove(int index)
     {
-        if(index >= this.column.size())
-            throw new IndexOutOfBoundsException(index);
-        return this.column.remove(index);
+        TreeSet<State> ret = this.get(index);
+        int from = rowStart[index], n = rowStart[index + 1] - from;
+        reserve(0, 0);
+        System.arraycopy(targets, from + n, targets, from, rowStart[rows] - from - n);
+        for(int i=index+1;i<=rows;i++)
+            rowStart[i - 1] = rowStart[i] - n;
+        rows--;
+        return ret;
     }
 
     public boolean remove(int index, State s)           // 返回真则表示移除成功，否则原状态集中无此状态
     {
-        return this.column.get(index).remove(s);
+        check(index);
+        if(s.isEmptyState())
+            return false;
+        int pos = Arrays.binarySearch(targets, rowStart[index], rowStart[index + 1], s.getS());
+        if(pos < 0)
+            return false;
+        reserve(0, 0);
+        System.arraycopy(targets, pos + 1, targets, pos, rowStart[rows] - pos - 1);
+        for(int i=index+1;i<=rows;i++)
+            rowStart[i]--;
+        return true;
     }
 
     public boolean set(int index, State olds, State news)
@@ -128,6 +196,36 @@ public class StateColumn implements Cloneable
 
     public void set(int index, TreeSet<State> ss)
     {
-        this.column.set(index, ss);
+        if(ss == null)
+            throw new NullPointerException();
+        check(index);
+        int from = rowStart[index], n = rowStart[index + 1] - from, m = 0;
+        for(State s : ss)
+            if(!s.isEmptyState())
+                m++;
+        reserve(0, Math.max(0, m - n));
+        System.arraycopy(targets, from + n, targets, from + m, rowStart[rows] - from - n);
+        for(State s : ss)
+            if(!s.isEmptyState())
+                targets[from++] = s.getS();
+        for(int i=index+1;i<=rows;i++)
+            rowStart[i] += m - n;
+    }
+
+    private void check(int index)
+    {
+        if(index >= this.rows || index < 0)
+            throw new IndexOutOfBoundsException(index);
+    }
+
+    private void reserve(int moreRows, int moreTargets)
+    {
+        // 写入前确保数组未被共享且容量足够，容量不足时按倍数扩张
+        int needRows = rows + moreRows + 1, needTargets = rowStart[rows] + moreTargets;
+        if(shared || needRows > rowStart.length)
+            rowStart = Arrays.copyOf(rowStart, Math.max(needRows, shared ? rowStart.length : rowStart.length * 2));
+        if(shared || needTargets > targets.length)
+            targets = Arrays.copyOf(targets, Math.max(needTargets, shared ? targets.length : targets.length * 2));
+        shared = false;
     }
 }
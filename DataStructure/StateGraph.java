@@ -0,0 +1,23 @@
+package DataStructure;
+
+import java.util.ArrayList;
+
+// 子集构造所需的状态集运算，由nfa或正则语法树的followpos提供
+interface StateGraph
+{
+    ArrayList<String> getRegulars();                                        // 规则集
+
+    CharClass getClasses();                                                 // 字符到等价类的映射
+
+    int[] getCandidates(int cls);                                           // 等价类所属的全部规则列
+
+    StateSet getStart();                                                    // 初始状态集
+
+    StateSet step(StateSet ss, int cls);                                    // 读入一个等价类的字符后的状态集，为空表示非法
+
+    Integer getEndingType(StateSet ss);                                     // 状态集的终止类型，非终态返回null
+
+    boolean containsStart(StateSet ss);                                     // 状态集是否包含初始状态
+
+    int getBitState(int bit);                                               // 状态集中的位对应的状态，终态为负数
+}
@@ -0,0 +1,84 @@
+package DataStructure;
+
+import java.util.Arrays;
+
+public class StateSet
+{
+    private final long[] words;                                             // 按位存放的状态集合
+    private int hash;                                                       // 缓存的哈希值，0表示尚未计算
+
+    public StateSet(int nbits)
+    {
+        this.words = new long[(nbits + 63) >>> 6];
+    }
+
+    public void set(int i)
+    {
+        words[i >>> 6] |= 1L << i;
+        hash = 0;
+    }
+
+    public boolean get(int i)
+    {
+        return (words[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public void or(StateSet o)
+    {
+        long[] ow = o.words;
+        for(int i=0;i<ow.length;i++)
+            words[i] |= ow[i];
+        hash = 0;
+    }
+
+    public boolean isEmpty()
+    {
+        for(long w : words)
+            if(w != 0)
+                return false;
+        return true;
+    }
+
+    public int nextSetBit(int from)
+    {
+        int u = from >>> 6;
+        if(u >= words.length)
+            return -1;
+        long w = words[u] & (-1L << from);
+        while(true) {
+            if(w != 0)
+                return (u << 6) + Long.numberOfTrailingZeros(w);
+            if(++u == words.length)
+                return -1;
+            w = words[u];
+        }
+    }
+
+    public int hashCode()
+    {
+        int h = hash;
+        if(h == 0) {
+            h = Arrays.hashCode(words);
+            hash = h == 0 ? 1 : h;
+        }
+        return hash;
+    }
+
+    public boolean equals(Object o)
+    {
+        if(this == o)
+            return true;
+        if(!(o instanceof StateSet))
+            return false;
+        StateSet s = (StateSet)o;
+        return hashCode() == s.hashCode() && Arrays.equals(words, s.words);
+    }
+
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("[");
+        for(int i=nextSetBit(0);i>=0;i=nextSetBit(i + 1))
+            sb.append(sb.length() > 1 ? ", " : "").append(i);
+        return sb.append("]").toString();
+    }
+}
@@ -1,36 +1,68 @@
 package DataStructure;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.TreeSet;
 
 public class StateTable
 {
-    ArrayList<State> rows;
+    private int[] rows;                                                     // 各行的状态编号
+    private int row_len;                                                    // 行数
     ArrayList<StateColumn> columns;
+    private HashMap<Integer, Integer> rowIndex;                             // 状态编号到行号的映射，为空表示第i行即状态i
+    private HashMap<String, Integer> columnIndex;                           // 规则名到列号的映射
 
     public StateTable()
     {
-        this.rows = new ArrayList<>();
+        this.rows = new int[8];
         this.columns = new ArrayList<>();
+        this.columnIndex = new HashMap<>();
+    }
+
+    StateTable(int rows, ArrayList<StateColumn> columns)
+    {
+        // 由已构造好的列直接生成状态表，第i行即状态i，调用者保证各列长度与行数一致且列名互不相同
+        this.rows = new int[Math.max(rows, 8)];
+        for(int i=0;i<rows;i++)
+            this.rows[i] = i;
+        this.row_len = rows;
+        this.columns = columns;
+        this.columnIndex = new HashMap<>();
+        for(int i=0;i<columns.size();i++)
+            this.columnIndex.put(columns.get(i).cname, i);
     }
 
     public boolean addRow(State s)
     {
         if(s == null)
             throw new NullPointerException("row state cannot be null");
-        if(this.rows.indexOf(s) >= 0)
+        if(getStateByID(s.s) >= 0)
             throw new IllegalArgumentException("state" + s.toString() + " has already in state row");
-        if(!this.rows.add(s))
-            return false;
+        if(rowIndex == null && s.s != row_len)
+            indexRows();                                                // 行号与状态编号不再一致，改用映射
+        if(row_len == rows.length)
+            rows = Arrays.copyOf(rows, row_len * 2);
+        rows[row_len] = s.s;
+        if(rowIndex != null)
+            rowIndex.put(s.s, row_len);
+        row_len++;
         for(StateColumn sc : columns)                                       // 增加行的同时列也增加空集
             sc.append(new State(null, false));
         return true;
     }
 
-    public ArrayList<State> getRows()
+    public int getRowCount()
+    {
+        return row_len;
+    }
+
+    public int getRowID(int index)
     {
-        return rows;
+        if(index >= row_len || index < 0)
+            throw new IndexOutOfBoundsException(index);
+        return rows[index];
     }
 
     public String[] getRegulars()
@@ -51,9 +83,18 @@ public class StateTable
 
     public void removeRow(int index)
     {
-        if(index >= this.rows.size() || index < 0)
+        if(index >= row_len || index < 0)
             throw new IndexOutOfBoundsException(index);
-        this.rows.remove(index);
+        if(rowIndex == null && index != row_len - 1)
+            indexRows();
+        if(rowIndex != null) {
+            // 只有被删行之后的行号需要前移
+            rowIndex.remove(rows[index]);
+            for(int i=index+1;i<row_len;i++)
+                rowIndex.put(rows[i], i - 1);
+        }
+        System.arraycopy(rows, index + 1, rows, index, row_len - index - 1);
+        row_len--;
         for(StateColumn sc : this.columns)                              // 状态列中相应的状态集也需要删除
             sc.remove(index);
     }
@@ -62,7 +103,7 @@ public class StateTable
     {
         if(this.columns.size() != 0)                                    // 检查新插入的列长度是否和旧列相等
         {
-            int newColLen = c.column.size(), oldColLen = this.columns.get(0).column.size();
+            int newColLen = c.size(), oldColLen = this.columns.get(0).size();
             if(newColLen != oldColLen)
                 throw new IllegalArgumentException(
                         "column length mismatch with old:" + oldColLen + " and new:" + newColLen);
@@ -72,13 +113,14 @@ public class StateTable
         if(pos < 0)
         {
             this.columns.add(c);                                        // 不存在则直接插入
+            this.columnIndex.put(c.getName(), this.columns.size() - 1);
             return;
         }
         StateColumn old = this.columns.get(pos);                        // 存在则对旧状态列的对应位置的状态集添加状态
         Iterator<State> stateIterator; State s;
-        for(int i=0;i<old.column.size();i++)
+        for(int i=0;i<old.size();i++)
         {
-            stateIterator = c.column.get(i).iterator();
+            stateIterator = c.get(i).iterator();
             while(stateIterator.hasNext())
             {
                 s = stateIterator.next();
@@ -99,6 +141,9 @@ public class StateTable
             return false;
         }
         this.columns.remove(pos);
+        this.columnIndex.remove(c.getName());
+        for(int i=pos;i<this.columns.size();i++)                        // 其后各列的列号前移
+            this.columnIndex.put(this.columns.get(i).cname, i);
         return true;
     }
 
@@ -106,10 +151,15 @@ public class StateTable
     {
         if(cname == null)
             throw new NullPointerException();
-        for(int i=0;i<this.columns.size();i++)
-            if(cname.contentEquals(this.columns.get(i).cname))
-                return i;
-        return -1;
+        Integer pos = this.columnIndex.get(cname);
+        return pos == null ? -1 : pos;
+    }
+
+    private void indexRows()
+    {
+        this.rowIndex = new HashMap<>();
+        for(int i=0;i<row_len;i++)
+            this.rowIndex.put(rows[i], i);
     }
 
     public StateColumn getColumnByName(String cname)
@@ -131,19 +181,15 @@ public class StateTable
     {
         if(s == null)
             throw new NullPointerException();
-        int pos = -1;
-        for(int i=0;i<this.rows.size();i++) {
-            if(this.rows.get(i).s.equals(s)) {
-                pos = i;
-                break;
-            }
-        }
-        return pos;
+        if(rowIndex == null)
+            return s >= 0 && s < row_len ? s : -1;
+        Integer pos = this.rowIndex.get(s);
+        return pos == null ? -1 : pos;
     }
 
     public TreeSet<State> getStateSet(int rowidx, String regular)
     {
-        if(rowidx<0 || rowidx >= this.rows.size())
+        if(rowidx<0 || rowidx >= row_len)
             throw new IndexOutOfBoundsException(rowidx);
         StateColumn sc = this.getColumnByName(regular);
         if(sc == null)
@@ -158,11 +204,11 @@ public class StateTable
         for(StateColumn c : columns)
             System.out.format("%-20s", c.getName());
         System.out.println();
-        for(int i=0;i<rows.size();i++)
+        for(int i=0;i<row_len;i++)
         {
-            System.out.format("%-20s", rows.get(i).getS());
+            System.out.format("%-20s", rows[i]);
             for(StateColumn c : columns)
-                System.out.format("%-20s", c.column.get(i));
+                System.out.format("%-20s", c.get(i));
             System.out.println();
         }
         System.out.println("-----------------ENDING------------------");
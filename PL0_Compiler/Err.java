@@ -14,7 +14,7 @@ public class Err {
 	 * @param errcode 错误码
 	 */
 	public static void report(int errcode) {
-		char[] s = new char[PL0.lex.cc-1];
+		char[] s = new char[PL0.lex.cc-PL0.lex.ls-1];
 		java.util.Arrays.fill(s, ' ');
 		String space = new String(s);
 		System.out.println("****" + space + "!" + errcode);
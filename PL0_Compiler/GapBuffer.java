@@ -0,0 +1,94 @@
+package PL0_Compiler;
+
+/**
+ *　　间隙缓冲区：文本存放在一个数组中，修改处留有一段空隙，在空隙处插入或删除只需移动空隙的两端。
+ *　　每次修改的开销与修改的长度及它到上一次修改处的距离成正比，与文本的总长度无关。
+ */
+class GapBuffer implements CharSequence {
+	/**
+	 * 文本及空隙，buf[gap, gapEnd)是空隙
+	 */
+	private char[] buf;
+
+	/**
+	 * 空隙的起始位置与结束位置（不含）
+	 */
+	private int gap, gapEnd;
+
+	/**
+	 * 直接使用buf，其中前length个字符是文本，其余部分作为空隙
+	 */
+	GapBuffer(char[] buf, int length) {
+		this.buf = buf;
+		this.gap = length;
+		this.gapEnd = buf.length;
+	}
+
+	public int length() {
+		return buf.length - (gapEnd - gap);
+	}
+
+	public char charAt(int i) {
+		return i < gap ? buf[i] : buf[i + gapEnd - gap];
+	}
+
+	public CharSequence subSequence(int start, int end) {
+		StringBuilder sb = new StringBuilder(end - start);
+		for (int i = start; i < end; i++)
+			sb.append(charAt(i));
+		return sb.toString();
+	}
+
+	public String toString() {
+		return new StringBuilder(length()).append(buf, 0, gap).append(buf, gapEnd, buf.length - gapEnd).toString();
+	}
+
+	/**
+	 * 把从offset起的removed个字符替换为inserted，之后空隙位于插入的文本之后
+	 */
+	void replace(int offset, int removed, String inserted) {
+		int ins = inserted.length();
+		moveGap(offset);
+		gapEnd += removed;
+		if (gapEnd - gap < ins) {
+			// 空隙不够时按倍数扩大，插入的开销均摊后仍与插入的长度成正比
+			char[] n = new char[Math.max(buf.length * 2, length() + ins + 16)];
+			System.arraycopy(buf, 0, n, 0, gap);
+			System.arraycopy(buf, gapEnd, n, n.length - (buf.length - gapEnd), buf.length - gapEnd);
+			gapEnd = n.length - (buf.length - gapEnd);
+			buf = n;
+		}
+		inserted.getChars(0, ins, buf, gap);
+		gap += ins;
+	}
+
+	/**
+	 * 把空隙移到to处并返回缓冲区，文本的[0, to)在其中连续存放，可以直接交给词法分析器
+	 */
+	char[] prefix(int to) {
+		moveGap(to);
+		return buf;
+	}
+
+	/**
+	 * from处（含）之后第一个换行符的下一个位置，没有时返回文本长度
+	 */
+	int lineEnd(int from) {
+		int n = length();
+		while (from < n && charAt(from) != '\n')
+			from++;
+		return from < n ? from + 1 : n;
+	}
+
+	private void moveGap(int at) {
+		if (at < gap) {
+			System.arraycopy(buf, at, buf, gapEnd - (gap - at), gap - at);
+			gapEnd -= gap - at;
+			gap = at;
+		} else if (at > gap) {
+			System.arraycopy(buf, gapEnd, buf, gap, at - gap);
+			gapEnd += at - gap;
+			gap = at;
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package PL0_Compiler;
+
+/**
+ *　　保留字的最小完全哈希表（hash and displace）。先按一次哈希把保留字分到若干桶中，
+ *　　再为每个桶找一个偏移量，使桶内的保留字经偏移后落在互不相同的空位上，
+ *　　查找时只需一次哈希、一次查偏移量和至多一次完整的比较。
+ */
+public class KeywordHash {
+	/**
+	 * 按哈希位置存放的保留字，位置数与保留字个数相同
+	 */
+	private final String[] slots;
+	
+	/**
+	 * 各位置上的保留字在原数组中的下标
+	 */
+	private final int[] index;
+	
+	/**
+	 * 各桶的偏移量
+	 */
+	private final int[] disp;
+	
+	/**
+	 * 保留字的最短与最长长度，长度不在此范围内的标识符不必计算哈希
+	 */
+	private final int minLen, maxLen;
+	
+	/**
+	 * @param words 保留字，均为小写且互不相同
+	 */
+	public KeywordHash(String[] words) {
+		int n = words.length, r = Math.max(1, n / 4);
+		int min = Integer.MAX_VALUE, max = 0;
+		int[] h = new int[n];
+		for (int i = 0; i < n; i++) {
+			h[i] = hash(words[i].toCharArray(), 0, words[i].length());
+			min = Math.min(min, words[i].length());
+			max = Math.max(max, words[i].length());
+		}
+		minLen = min;
+		maxLen = max;
+		// 按桶分组，元素多的桶先放，越往后空位越少时桶越小，越容易找到偏移量
+		java.util.List<java.util.List<Integer>> buckets = new java.util.ArrayList<>();
+		for (int b = 0; b < r; b++)
+			buckets.add(new java.util.ArrayList<>());
+		for (int i = 0; i < n; i++)
+			buckets.get(Math.floorMod(h[i], r)).add(i);
+		Integer[] order = new Integer[r];
+		for (int b = 0; b < r; b++)
+			order[b] = b;
+		java.util.Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+		slots = new String[n];
+		index = new int[n];
+		disp = new int[r];
+		boolean[] used = new boolean[n];
+		int[] pos = new int[max(buckets)];
+		for (int b : order) {
+			java.util.List<Integer> bucket = buckets.get(b);
+			if (bucket.isEmpty())
+				continue;
+			for (int d = 1; ; d++) {
+				if (d == Integer.MAX_VALUE)
+					throw new IllegalStateException("cannot build perfect hash");
+				boolean ok = true;
+				for (int k = 0; k < bucket.size() && ok; k++) {
+					pos[k] = slot(h[bucket.get(k)], d, n);
+					ok = !used[pos[k]];
+					for (int j = 0; j < k && ok; j++)
+						ok = pos[j] != pos[k];
+				}
+				if (!ok)
+					continue;
+				for (int k = 0; k < bucket.size(); k++) {
+					used[pos[k]] = true;
+					slots[pos[k]] = words[bucket.get(k)];
+					index[pos[k]] = bucket.get(k);
+				}
+				disp[b] = d;
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * 查找buf[from, to)中的标识符（不区分大小写）是否是保留字
+	 * @return 保留字在构造时所给数组中的下标，不是保留字则返回-1
+	 */
+	public int find(char[] buf, int from, int to) {
+		int len = to - from;
+		if (len < minLen || len > maxLen)
+			return -1;
+		int h = hash(buf, from, to), p = slot(h, disp[Math.floorMod(h, disp.length)], slots.length);
+		String w = slots[p];
+		if (w.length() != len)
+			return -1;
+		for (int i = 0; i < len; i++)
+			if (w.charAt(i) != Character.toLowerCase(buf[from + i]))
+				return -1;
+		return index[p];
+	}
+	
+	private static int hash(char[] buf, int from, int to) {
+		// FNV-1a
+		int h = 0x811c9dc5;
+		for (int i = from; i < to; i++)
+			h = (h ^ Character.toLowerCase(buf[i])) * 0x01000193;
+		return h;
+	}
+	
+	private static int slot(int h, int d, int n) {
+		// 用偏移量扰动哈希值后取模
+		h ^= d * 0x9E3779B9;
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		return Math.floorMod(h, n);
+	}
+	
+	private static int max(java.util.List<java.util.List<Integer>> buckets) {
+		int ret = 0;
+		for (java.util.List<Integer> b : buckets)
+			ret = Math.max(ret, b.size());
+		return ret;
+	}
+}
@@ -0,0 +1,122 @@
+package PL0_Compiler;
+
+/**
+ *　　标识符驻留表。标识符直接从源文件缓冲区中的一段字符查找，同名（不区分大小写）的标识符得到同一个编号，
+ *　　只有第一次出现时才创建名字字符串。
+ */
+public class NameTable {
+	/**
+	 * 开放定址的哈希槽，存放编号加一，0表示空槽
+	 */
+	private int[] slots = new int[256];
+	
+	/**
+	 * 由哈希值取槽号时右移的位数，即32减去槽数的对数
+	 */
+	private int shift = 24;
+	
+	/**
+	 * 各编号的哈希值，扩容时不必重新计算
+	 */
+	private int[] hashes = new int[128];
+	
+	/**
+	 * 各编号对应的名字，均为小写
+	 */
+	private String[] names = new String[128];
+	
+	/**
+	 * 已登记的名字个数
+	 */
+	private int size = 0;
+	
+	/**
+	 * 查找buf[from, to)中的标识符，没有则登记
+	 * @return 标识符的编号，从0开始连续分配
+	 */
+	public int intern(char[] buf, int from, int to) {
+		int h = 0, mask = slots.length - 1, p, id;
+		for (int i = from; i < to; i++)
+			h = 31 * h + Character.toLowerCase(buf[i]);
+		h ^= h >>> 16;
+		for (p = slot(h); (id = slots[p] - 1) >= 0; p = (p + 1) & mask)
+			if (hashes[id] == h && matches(names[id], buf, from, to))
+				return id;
+		// 没有找到，登记新名字
+		char[] s = new char[to - from];
+		for (int i = from; i < to; i++)
+			s[i - from] = Character.toLowerCase(buf[i]);
+		return add(new String(s), h, p);
+	}
+	
+	private int add(String name, int h, int slot) {
+		// 在空槽slot处登记名字
+		if (size == names.length) {
+			names = java.util.Arrays.copyOf(names, size * 2);
+			hashes = java.util.Arrays.copyOf(hashes, size * 2);
+		}
+		int id = size++;
+		names[id] = name;
+		hashes[id] = h;
+		slots[slot] = id + 1;
+		if (size * 2 > slots.length)
+			rehash();
+		return id;
+	}
+	
+	/**
+	 * 查找名字，没有则登记，名字必须已是小写
+	 * @return 名字的编号
+	 */
+	public int intern(String name) {
+		int h = 0, mask = slots.length - 1, p, id;
+		for (int i = 0; i < name.length(); i++)
+			h = 31 * h + name.charAt(i);
+		h ^= h >>> 16;
+		for (p = slot(h); (id = slots[p] - 1) >= 0; p = (p + 1) & mask)
+			if (hashes[id] == h && names[id].equals(name))
+				return id;
+		return add(name, h, p);
+	}
+	
+	/**
+	 * 编号对应的名字
+	 */
+	public String name(int id) {
+		return names[id];
+	}
+	
+	/**
+	 * 已登记的名字个数
+	 */
+	public int size() {
+		return size;
+	}
+	
+	private int slot(int h) {
+		// 乘以黄金分割常数后取高位，名字相近的标识符哈希值只差在低位，直接取低位会聚成长串
+		return (h * 0x9E3779B9) >>> shift;
+	}
+	
+	private static boolean matches(String name, char[] buf, int from, int to) {
+		if (name.length() != to - from)
+			return false;
+		for (int i = from; i < to; i++)
+			if (name.charAt(i - from) != Character.toLowerCase(buf[i]))
+				return false;
+		return true;
+	}
+	
+	private void rehash() {
+		// 装填因子超过一半时槽数加倍
+		int[] ns = new int[slots.length * 2];
+		int mask = ns.length - 1, p;
+		shift --;
+		for (int id = 0; id < size; id++) {
+			for (p = slot(hashes[id]); ns[p] != 0; p = (p + 1) & mask)
+				;
+			ns[p] = id + 1;
+		}
+		slots = ns;
+	}
+}
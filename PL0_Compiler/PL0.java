@@ -49,6 +49,15 @@ public class PL0 {
 		interp = new Interpreter();
 		lex = new Scanner(fin);
 		parser = new Parser(lex, table, interp);
+		// 指定-Dpl0.batch=true时先一次分析完整个源文件，语法分析再依次取用分析好的符号，
+		// 指定-Dpl0.parallel=true时则在公共线程池中分段并行分析，
+		// 指定-Dpl0.pipeline=true时词法分析在单独的线程中与语法分析同时进行
+		if (Boolean.getBoolean("pl0.pipeline"))
+			lex.pipeline();
+		else if (Boolean.getBoolean("pl0.parallel"))
+			lex.replay(lex.tokenize(java.util.concurrent.ForkJoinPool.commonPool()).cursor());
+		else if (Boolean.getBoolean("pl0.batch"))
+			lex.replay(lex.tokenize().cursor());
 	}
 
 	/**
@@ -68,6 +77,7 @@ public class PL0 {
 			abort = true;
 		} catch (IOException e) {
 		} finally { 
+			lex.close();			// 流水线方式下结束词法分析线程
 			PL0.fa.close();
 			PL0.fa1.close();
 			PL0.fas.close();
@@ -0,0 +1,307 @@
+package PL0_Compiler;
+
+/**
+ * 由 DataStructure.LexerGenerator 根据以下词法规则生成的状态机，请勿手工修改
+ * <pre>[_&#92;c][_&#92;w]*</pre>
+ * <pre>&#92;d+</pre>
+ * <pre>[ &#92;t&#92;r]+</pre>
+ * <pre>&#92;n</pre>
+ * <pre>&#92;+</pre>
+ * <pre>-</pre>
+ * <pre>&#92;*</pre>
+ * <pre>/</pre>
+ * <pre>&#92;(</pre>
+ * <pre>&#92;)</pre>
+ * <pre>=</pre>
+ * <pre>,</pre>
+ * <pre>.</pre>
+ * <pre>#</pre>
+ * <pre>;</pre>
+ * <pre>!</pre>
+ * <pre>&lt;</pre>
+ * <pre>&gt;</pre>
+ * <pre>:</pre>
+ * <pre>&lt;=</pre>
+ * <pre>&gt;=</pre>
+ * <pre>:=</pre>
+ * <pre>&#92;|&#92;|</pre>
+ * <pre>&amp;&amp;</pre>
+ */
+public final class PL0Lexer {
+	/**
+	 * 词法规则及自动机构造版本的摘要，与当前的不一致时说明本类已过期
+	 */
+	public static final String SPEC = "827592070601e04a1c3010225aad81edd23a0316158aaeea5e5f69d83e2ea5b8";
+
+	public static final int ILLEGALSTATE = -1;
+	public static final int START = 0;
+	public static final int STATES = 27;
+
+	private static final char[] INDEX = unpack(
+		"\1\0\1\u0100\1\u0200\1\u0300\1\u0400\1\u0500\1\u0600\1\u0700\1\u0800\1\u0900" +
+		"\1\u0a00\1\u0b00\1\u0c00\1\u0d00\1\u0e00\1\u0f00\1\u1000\1\u0100\1\u1100" +
+		"\1\u1200\1\u1300\1\u0100\1\u1400\1\u1500\1\u1600\1\u1700\1\u1800\1\u1900" +
+		"\1\u1a00\1\u1b00\1\u0100\1\u1c00\1\u1d00\1\u1e00\12\u1f00\1\u2000\1\u2100" +
+		"\1\u2200\1\u1f00\1\u2300\1\u2400\2\u1f00\31\u0100\1\u1b00\121\u0100\1\u2500" +
+		"\4\u0100\1\u2600\1\u0100\1\u2700\1\u2800\1\u2900\1\u2a00\1\u2b00\1\u2c00" +
+		"\53\u0100\1\u2d00\41\u1f00\1\u0100\1\u2e00\1\u2f00\1\u0100\1\u3000\1\u3100" +
+		"\1\u3200",
+		256);
+	private static final char[] BLOCKS = unpack(
+		"\11\0\1\1\1\2\2\0\1\1\22\0\1\1\1\3\1\0\1\4\2\0\1\5\1\0\1\6\1\7\1\10\1\11" +
+		"\1\12\1\13\1\14\1\15\12\16\1\17\1\20\1\21\1\22\1\23\2\0\32\24\4\0\1\24\1\0" +
+		"\32\24\1\0\1\25\55\0\1\24\12\0\1\24\4\0\1\24\5\0\27\24\1\0\37\24\1\0\u01ca\24" +
+		"\4\0\14\24\16\0\5\24\7\0\1\24\1\0\1\24\201\0\5\24\1\0\2\24\2\0\4\24\1\0\1\24" +
+		"\6\0\1\24\1\0\3\24\1\0\1\24\1\0\24\24\1\0\123\24\1\0\213\24\10\0\246\24\1\0" +
+		"\46\24\2\0\1\24\6\0\51\24\107\0\33\24\4\0\4\24\55\0\53\24\25\0\12\16\4\0" +
+		"\2\24\1\0\143\24\1\0\1\24\17\0\2\24\7\0\2\24\12\16\3\24\2\0\1\24\20\0\1\24" +
+		"\1\0\36\24\35\0\131\24\13\0\1\24\16\0\12\16\41\24\11\0\2\24\4\0\1\24\5\0" +
+		"\26\24\4\0\1\24\11\0\1\24\3\0\1\24\27\0\31\24\7\0\13\24\65\0\25\24\1\0\22\24" +
+		"\74\0\66\24\3\0\1\24\22\0\1\24\7\0\12\24\4\0\12\16\1\0\20\24\4\0\10\24\2\0" +
+		"\2\24\2\0\26\24\1\0\7\24\1\0\1\24\3\0\4\24\3\0\1\24\20\0\1\24\15\0\2\24\1\0" +
+		"\3\24\4\0\12\16\2\24\12\0\1\24\10\0\6\24\4\0\2\24\2\0\26\24\1\0\7\24\1\0" +
+		"\2\24\1\0\2\24\1\0\2\24\37\0\4\24\1\0\1\24\7\0\12\16\2\0\3\24\20\0\11\24" +
+		"\1\0\3\24\1\0\26\24\1\0\7\24\1\0\2\24\1\0\5\24\3\0\1\24\22\0\1\24\17\0\2\24" +
+		"\4\0\12\16\11\0\1\24\13\0\10\24\2\0\2\24\2\0\26\24\1\0\7\24\1\0\2\24\1\0" +
+		"\5\24\3\0\1\24\36\0\2\24\1\0\3\24\4\0\12\16\1\0\1\24\21\0\1\24\1\0\6\24\3\0" +
+		"\3\24\1\0\4\24\3\0\2\24\1\0\1\24\1\0\2\24\3\0\2\24\3\0\3\24\3\0\14\24\26\0" +
+		"\1\24\25\0\12\16\25\0\10\24\1\0\3\24\1\0\27\24\1\0\20\24\3\0\1\24\32\0\3\24" +
+		"\5\0\2\24\4\0\12\16\20\0\1\24\4\0\10\24\1\0\3\24\1\0\27\24\1\0\12\24\1\0" +
+		"\5\24\3\0\1\24\40\0\1\24\1\0\2\24\4\0\12\16\1\0\2\24\21\0\11\24\1\0\3\24" +
+		"\1\0\51\24\2\0\1\24\20\0\1\24\5\0\3\24\10\0\3\24\4\0\12\16\12\0\6\24\5\0" +
+		"\22\24\3\0\30\24\1\0\11\24\1\0\1\24\2\0\7\24\37\0\12\16\21\0\60\24\1\0\2\24" +
+		"\14\0\7\24\11\0\12\16\47\0\2\24\1\0\1\24\1\0\5\24\1\0\30\24\1\0\1\24\1\0" +
+		"\12\24\1\0\2\24\11\0\1\24\2\0\5\24\1\0\1\24\11\0\12\16\2\0\4\24\40\0\1\24" +
+		"\37\0\12\16\26\0\10\24\1\0\44\24\33\0\5\24\163\0\53\24\24\0\1\24\12\16\6\0" +
+		"\6\24\4\0\4\24\3\0\1\24\3\0\2\24\7\0\3\24\4\0\15\24\14\0\1\24\1\0\12\16\6\0" +
+		"\46\24\1\0\1\24\5\0\1\24\2\0\53\24\1\0\115\24\1\0\4\24\2\0\7\24\1\0\1\24" +
+		"\1\0\4\24\2\0\51\24\1\0\4\24\2\0\41\24\1\0\4\24\2\0\7\24\1\0\1\24\1\0\4\24" +
+		"\2\0\17\24\1\0\71\24\1\0\4\24\2\0\103\24\45\0\20\24\20\0\126\24\2\0\6\24" +
+		"\3\0\u016c\24\2\0\21\24\1\0\32\24\5\0\113\24\6\0\10\24\7\0\15\24\1\0\4\24" +
+		"\16\0\22\24\16\0\22\24\16\0\15\24\1\0\3\24\17\0\64\24\43\0\1\24\4\0\1\24" +
+		"\3\0\12\16\46\0\12\16\6\0\131\24\7\0\5\24\2\0\42\24\1\0\1\24\5\0\106\24\12\0" +
+		"\37\24\47\0\12\16\36\24\2\0\5\24\13\0\54\24\4\0\32\24\6\0\12\16\46\0\27\24" +
+		"\11\0\65\24\53\0\12\16\6\0\12\16\15\0\1\24\135\0\57\24\21\0\7\24\4\0\12\16" +
+		"\51\0\36\24\15\0\2\24\12\16\54\24\32\0\44\24\34\0\12\16\3\0\3\24\12\16\44\24" +
+		"\2\0\11\24\7\0\53\24\2\0\3\24\51\0\4\24\1\0\6\24\1\0\2\24\3\0\1\24\5\0\300\24" +
+		"\100\0\26\24\2\0\6\24\2\0\46\24\2\0\6\24\2\0\10\24\1\0\1\24\1\0\1\24\1\0" +
+		"\1\24\1\0\37\24\2\0\65\24\1\0\7\24\1\0\1\24\3\0\3\24\1\0\7\24\3\0\4\24\2\0" +
+		"\6\24\4\0\15\24\5\0\3\24\1\0\7\24\164\0\1\24\15\0\1\24\20\0\15\24\145\0\1\24" +
+		"\4\0\1\24\2\0\12\24\1\0\1\24\3\0\5\24\6\0\1\24\1\0\1\24\1\0\1\24\1\0\4\24" +
+		"\1\0\13\24\2\0\4\24\5\0\5\24\4\0\1\24\64\0\2\24\u017b\0\57\24\1\0\57\24\1\0" +
+		"\205\24\6\0\4\24\3\0\2\24\14\0\46\24\1\0\1\24\5\0\1\24\2\0\70\24\7\0\1\24" +
+		"\20\0\27\24\11\0\7\24\1\0\7\24\1\0\7\24\1\0\7\24\1\0\7\24\1\0\7\24\1\0\7\24" +
+		"\1\0\7\24\120\0\1\24\325\0\2\24\52\0\5\24\5\0\2\24\4\0\126\24\6\0\3\24\1\0" +
+		"\132\24\1\0\4\24\5\0\53\24\1\0\136\24\21\0\40\24\60\0\u010d\24\3\0\215\24" +
+		"\103\0\56\24\2\0\15\24\3\0\20\24\12\16\2\24\24\0\57\24\20\0\37\24\2\0\106\24" +
+		"\61\0\11\24\2\0\147\24\2\0\65\24\2\0\11\24\52\0\15\24\1\0\3\24\1\0\4\24\1\0" +
+		"\27\24\35\0\64\24\16\0\62\24\34\0\12\16\30\0\6\24\3\0\1\24\1\0\2\24\1\0\12\16" +
+		"\34\24\12\0\27\24\31\0\35\24\7\0\57\24\34\0\1\24\12\16\6\0\5\24\1\0\12\24" +
+		"\12\16\5\24\1\0\51\24\27\0\3\24\1\0\10\24\4\0\12\16\6\0\27\24\3\0\1\24\3\0" +
+		"\62\24\1\0\1\24\3\0\2\24\2\0\5\24\2\0\1\24\1\0\1\24\30\0\3\24\2\0\13\24\7\0" +
+		"\3\24\14\0\6\24\2\0\6\24\2\0\6\24\11\0\7\24\1\0\7\24\1\0\53\24\1\0\16\24" +
+		"\6\0\163\24\15\0\12\16\6\0\244\24\14\0\27\24\4\0\61\24\4\0\156\24\2\0\152\24" +
+		"\46\0\7\24\14\0\5\24\5\0\1\24\1\0\12\24\1\0\15\24\1\0\5\24\1\0\1\24\1\0\2\24" +
+		"\1\0\2\24\1\0\154\24\41\0\153\24\22\0\100\24\2\0\66\24\50\0\14\24\164\0\5\24" +
+		"\1\0\207\24\23\0\12\16\7\0\32\24\6\0\32\24\13\0\131\24\3\0\6\24\2\0\6\24" +
+		"\2\0\6\24\2\0\3\24\43\0",
+		13056);
+
+	private PL0Lexer() {
+	}
+
+	/**
+	 * 字符所属的等价类
+	 */
+	public static int classOf(char ch) {
+		return BLOCKS[INDEX[ch >>> 8] + (ch & 0xFF)];
+	}
+
+	/**
+	 * 状态state读入字符ch后的状态，非法时返回ILLEGALSTATE
+	 */
+	public static int next(int state, char ch) {
+		switch (state) {
+		case 0:
+			switch (classOf(ch)) {
+			case 1: return 1;
+			case 2: return 2;
+			case 3: return 3;
+			case 4: return 4;
+			case 5: return 5;
+			case 6: return 6;
+			case 7: return 7;
+			case 8: return 8;
+			case 9: return 9;
+			case 10: return 10;
+			case 11: return 11;
+			case 12: return 12;
+			case 13: return 13;
+			case 14: return 14;
+			case 15: return 15;
+			case 16: return 16;
+			case 17: return 17;
+			case 18: return 18;
+			case 19: return 19;
+			case 20: return 20;
+			case 21: return 21;
+			default: return ILLEGALSTATE;
+			}
+		case 1:
+			switch (classOf(ch)) {
+			case 1: return 1;
+			default: return ILLEGALSTATE;
+			}
+		case 2:
+			return ILLEGALSTATE;
+		case 3:
+			return ILLEGALSTATE;
+		case 4:
+			return ILLEGALSTATE;
+		case 5:
+			switch (classOf(ch)) {
+			case 5: return 22;
+			default: return ILLEGALSTATE;
+			}
+		case 6:
+			return ILLEGALSTATE;
+		case 7:
+			return ILLEGALSTATE;
+		case 8:
+			return ILLEGALSTATE;
+		case 9:
+			return ILLEGALSTATE;
+		case 10:
+			return ILLEGALSTATE;
+		case 11:
+			return ILLEGALSTATE;
+		case 12:
+			return ILLEGALSTATE;
+		case 13:
+			return ILLEGALSTATE;
+		case 14:
+			switch (classOf(ch)) {
+			case 14: return 14;
+			default: return ILLEGALSTATE;
+			}
+		case 15:
+			switch (classOf(ch)) {
+			case 18: return 23;
+			default: return ILLEGALSTATE;
+			}
+		case 16:
+			return ILLEGALSTATE;
+		case 17:
+			switch (classOf(ch)) {
+			case 18: return 24;
+			default: return ILLEGALSTATE;
+			}
+		case 18:
+			return ILLEGALSTATE;
+		case 19:
+			switch (classOf(ch)) {
+			case 18: return 25;
+			default: return ILLEGALSTATE;
+			}
+		case 20:
+			switch (classOf(ch)) {
+			case 14: case 20: return 20;
+			default: return ILLEGALSTATE;
+			}
+		case 21:
+			switch (classOf(ch)) {
+			case 21: return 26;
+			default: return ILLEGALSTATE;
+			}
+		case 22:
+			return ILLEGALSTATE;
+		case 23:
+			return ILLEGALSTATE;
+		case 24:
+			return ILLEGALSTATE;
+		case 25:
+			return ILLEGALSTATE;
+		case 26:
+			return ILLEGALSTATE;
+		default:
+			return ILLEGALSTATE;
+		}
+	}
+
+	/**
+	 * 从buf[from]起跳过使状态state停留在自环上的字符，返回第一个不在自环上的位置
+	 */
+	public static int skip(int state, char[] buf, int from, int to) {
+		switch (state) {
+		case 1:
+			for (; from < to; from++) {
+				switch (classOf(buf[from])) {
+				case 1: continue;
+				default: return from;
+				}
+			}
+			return from;
+		case 14:
+			for (; from < to; from++) {
+				switch (classOf(buf[from])) {
+				case 14: continue;
+				default: return from;
+				}
+			}
+			return from;
+		case 20:
+			for (; from < to; from++) {
+				switch (classOf(buf[from])) {
+				case 14: case 20: continue;
+				default: return from;
+				}
+			}
+			return from;
+		default:
+			return from;
+		}
+	}
+
+	/**
+	 * 状态state的终止类型，非终态返回0
+	 */
+	public static int endType(int state) {
+		switch (state) {
+		case 22: return -25;
+		case 26: return -24;
+		case 23: return -23;
+		case 25: return -22;
+		case 24: return -21;
+		case 15: return -20;
+		case 19: return -19;
+		case 17: return -18;
+		case 3: return -17;
+		case 16: return -16;
+		case 4: return -15;
+		case 12: return -14;
+		case 10: return -13;
+		case 18: return -12;
+		case 7: return -11;
+		case 6: return -10;
+		case 13: return -9;
+		case 8: return -8;
+		case 11: return -7;
+		case 9: return -6;
+		case 2: return -5;
+		case 1: return -4;
+		case 14: return -3;
+		case 20: return -2;
+		default: return 0;
+		}
+	}
+
+	private static char[] unpack(String packed, int len) {
+		// 游程编码：依次为重复次数与字符值
+		char[] ret = new char[len];
+		int p = 0;
+		for (int i = 0; i < packed.length(); i += 2)
+			for (int n = packed.charAt(i); n > 0; n--)
+				ret[p++] = packed.charAt(i + 1);
+		return ret;
+	}
+}
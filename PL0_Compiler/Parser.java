@@ -341,7 +341,7 @@ public class Parser {
 
 		nextSym();
 		if(sym == Symbol.ident) {
-			int i = table.position(lex.id);
+			int i = table.position(lex.idn);
 			if (i > 0) {
 				Table.Item item = table.get(i);
 				if(item.kind == Objekt.integer) {
@@ -472,7 +472,7 @@ public class Parser {
 		int i;
 		nextSym();
 		if (sym == Symbol.ident) {
-			i = table.position(lex.id);
+			i = table.position(lex.idn);
 			if (i == 0) {
 				Err.report(11);					// 过程未找到
 			} else {
@@ -528,7 +528,7 @@ public class Parser {
 			do {
 				nextSym();
 				if (sym == Symbol.ident)
-					i = table.position(lex.id);
+					i = table.position(lex.idn);
 				else
 					i = 0;
 				
@@ -568,7 +568,7 @@ public class Parser {
 		int i;
 		SymSet nxtlev;
 
-		i = table.position(lex.id);
+		i = table.position(lex.idn);
 		if (i > 0) {
 			Table.Item item = table.get(i);
 			if (item.kind == Objekt.integer || item.kind == Objekt.bool) {
@@ -625,7 +625,7 @@ public class Parser {
         if(sym == Symbol.not)
             parseBoolNotFactor(nxtlev, lev);
         else if(sym == Symbol.ident) {
-            int idx = table.position(lex.id);
+            int idx = table.position(lex.idn);
             nextSym();
             if(idx > 0) {
                 Table.Item item = table.get(idx);
@@ -769,7 +769,7 @@ public class Parser {
 		// while(inset(sym, facbegsys))
 		if (facbegsys.get(sym)) {
 			if (sym == Symbol.ident) {			// 因子为常量或变量
-				int i = table.position(lex.id);
+				int i = table.position(lex.idn);
 				if (i > 0) {
 					Table.Item item = table.get(i);
 					switch (item.kind) {
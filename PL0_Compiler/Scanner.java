@@ -1,9 +1,18 @@
 package PL0_Compiler;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import DataStructure.DFA;
+import DataStructure.DFACache;
 
 /**
  *　　词法分析器负责的工作是从源代码里面读取文法符号，这是PL/0编译器的主要组成部分之一。
@@ -16,42 +25,59 @@ public class Scanner {
 	private char ch = ' ';
 	
 	/**
-	 * 当前读入的行
+	 * 整个源文件的内容，一次读入，词法分析在其中原地进行
 	 */
 	private char[] line;
 	
 	/**
-	 * 当前行的长度（line length）
+	 * 源文件的长度，末尾保证是换行符
 	 */
 	public int ll = 0;
 	
 	/**
-	 * 当前字符在当前行中的位置（character counter）
+	 * 下一个字符在源文件中的位置（character counter）
 	 */
 	public int cc = 0;
 	
+	/**
+	 * 当前行在源文件中的起始位置，cc - ls 即当前字符在行中的位置
+	 */
+	public int ls = 0;
+	
 	/**
 	 * 当前读入的符号
 	 */
 	public Symbol sym;
 	
+	/**
+	 * 当前符号在源文件中的起始位置与结束位置（不含）
+	 */
+	public int tokStart, tokEnd;
+	
 	/**
 	 * 保留字列表（注意保留字的存放顺序）
 	 */
-	private String[] word;
+	private static final String[] word;
 	
 	/**
 	 * 保留字对应的符号值
 	 */
-	private Symbol[] wsym;
+	private static final Symbol[] wsym;
+	
+	/**
+	 * 保留字的完全哈希表，取代对word的折半查找
+	 */
+	private static final KeywordHash keywords;
 	
 	/**
 	 * 单字符的符号值
 	 */
-	private Symbol[] ssym;
+	private static final Symbol[] ssym;
 
-	// 输入流
-	private BufferedReader in;
+	/**
+	 * 由保留字的符号值取得保留字名字，重放预先分析好的符号时据此设置id
+	 */
+	private static final String[] wname;
 
 	/**
 	 * 标识符名字（如果当前符号是标识符的话）
@@ -60,6 +86,18 @@ public class Scanner {
 	 */
 	public String id;
 
+	/**
+	 * 标识符的编号（如果当前符号是标识符的话），同名标识符的编号相同
+	 * @see NameTable
+	 * @see Table#position(int)
+	 */
+	public int idn;
+
+	/**
+	 * 出现过的所有标识符
+	 */
+	public final NameTable names;
+
 	/**
 	 * 数值大小（如果当前符号是数字的话）
 	 * @see Parser
@@ -67,18 +105,21 @@ public class Scanner {
 	 */
 	public int num;
 
-	// DFA
-	private DFA dfa;
-	private final int IDENT, NUMBER, OPERATOR, BLANK, LINEBREAK;
+	// 词法规则及各规则对应的终止类型，每个操作符单独作为一条规则，第k个操作符的终止类型为OPERATOR - k
+	static final int IDENT = -2, NUMBER = -3, BLANK = -4, LINEBREAK = -5, OPERATOR = -6;
+	static final String[] OPERATORS = {"\\+", "-", "\\*", "/", "\\(", "\\)", "=", ",", ".", "#", ";", "!", "<", ">", ":",
+		"<=", ">=", ":=", "\\|\\|", "&&"};
+	static final Symbol[] OPSYMS = {Symbol.plus, Symbol.minus, Symbol.times, Symbol.slash, Symbol.lparen, Symbol.rparen,
+		Symbol.eql, Symbol.comma, Symbol.period, Symbol.neq, Symbol.semicolon, Symbol.not, Symbol.lss, Symbol.gtr, Symbol.colon,
+		Symbol.leq, Symbol.geq, Symbol.becomes, Symbol.or, Symbol.and};
+	static final String[] REGEX = rules("[_\\c][_\\w]*", "\\d+", "[ \\t\\r]+", "\\n");
+	static final int[] ENDS = ends(IDENT, NUMBER, BLANK, LINEBREAK);
 
-	/**
-	 * 初始化词法分析器
-	 * @param input PL/0 源文件输入流
-	 */
+	// 预先生成的PL0Lexer是否与当前规则一致，只需判断一次
+	private static final boolean PRECOMPILED = PL0Lexer.SPEC.equals(DFACache.specKey(REGEX, ENDS));
 
-	public Scanner(BufferedReader input) {
-		in = input;
-		
+	// 符号表与保留字表都是常量，所有词法分析器（包括并行分析时每段各自的）共用一份
+	static {
 		// 设置单字符符号
 		ssym = new Symbol[256];
 		java.util.Arrays.fill(ssym, Symbol.nul);
@@ -98,7 +139,7 @@ public class Scanner {
 		ssym['>'] = Symbol.gtr;
 		ssym[':'] = Symbol.colon;
 		
-		// 设置保留字名字,按照字母顺序，便于折半查找
+		// 设置保留字名字，查找经由完全哈希表，与存放顺序无关
 		word = new String[] {"begin", "boolean", "call", "const", "do", "downto", "end", "false", "for", "if", "integer",
 			"odd", "procedure", "read", "then", "to", "true", "var", "while", "write"};
 		
@@ -125,101 +166,475 @@ public class Scanner {
 		wsym[i++] = Symbol.varsym;
 		wsym[i++] = Symbol.whilesym;
 		wsym[i++] = Symbol.writesym;
+		keywords = new KeywordHash(word);
+		wname = new String[Symbol.values().length];
+		for (i = 0; i < word.length; i++)
+			wname[wsym[i].ordinal()] = word[i];
+	}
+
+	private static String[] rules(String... head) {
+		String[] ret = java.util.Arrays.copyOf(head, head.length + OPERATORS.length);
+		System.arraycopy(OPERATORS, 0, ret, head.length, OPERATORS.length);
+		return ret;
+	}
 
-		IDENT = -2; NUMBER = -3; OPERATOR = -4; BLANK = -5; LINEBREAK = -6;
-		dfa = new DFA(
-				new String[] {"(_|\\c)(\\w|_)*", "\\d+", "\\+|-|\\*|/|\\(|\\)|=|.|,|#|;|<=|>=|:=|<|>|\\|\\||&&|!|:", " |\\t", "\\n"},
-				new int[] {IDENT, NUMBER, OPERATOR, BLANK, LINEBREAK}
-		);
+	private static int[] ends(int... head) {
+		int[] ret = java.util.Arrays.copyOf(head, head.length + OPERATORS.length);
+		for (int k = 0; k < OPERATORS.length; k++)
+			ret[head.length + k] = OPERATOR - k;
+		return ret;
 	}
 
+	// DFA的匹配位置，若预先生成的PL0Lexer与当前规则一致则直接使用它，不再构造自动机
+	private DFA.Cursor dfa;
+	private final boolean compiled;
+
+	// 不为空时getsym不再分析源文件，而是依次取出预先分析好的符号
+	private TokenSource replay;
+
+	// 一次分析整个源文件时，数字过长的错误推迟到取出该符号时再报告
+	private boolean batch;
+
+	// 开始分析的位置，cc仍等于它时ch是尚未读入任何字符时的初始空格
+	private int origin;
+
 	/**
-	 * 读取一个字符，为减少磁盘I/O次数，每次读取一行
+	 * 并行分析时每段源文件的最小长度
 	 */
-	void getch() {
-		String l = "";
+	private static final int CHUNK = 1 << 16;
+
+	/**
+	 * 流水线方式下词法分析线程与语法分析线程之间的缓冲区容量
+	 */
+	private static final int RING = 1 << 12;
+
+	/**
+	 * 所有词法分析器共享同一个自动机，第一次用到时才构造
+	 */
+	private static class SharedDFA {
+		// 编译好的自动机缓存在磁盘上，正则规则不变时后续运行可跳过构造过程
+		static final DFA DFA = new DFACache(System.getProperty("pl0.dfacache",
+				System.getProperty("java.io.tmpdir") + java.io.File.separator + "pl0-dfa")).get(REGEX, ENDS);
+	}
+
+	/**
+	 * 初始化词法分析器
+	 * @param input PL/0 源文件输入流，全部内容一次读入
+	 */
+	public Scanner(BufferedReader input) {
+		this(terminate(readAll(input)));
+	}
+
+	/**
+	 * 初始化词法分析器，源文件以内存映射的方式读入并一次解码
+	 * @param file PL/0 源文件
+	 */
+	public Scanner(Path file) throws IOException {
+		this(terminate(mapAll(file)));
+	}
+
+	private Scanner(CharBuffer source) {
+		this(source.array(), 0, source.limit(), new NameTable());
+	}
+
+	/**
+	 * 只分析buf[from, to)这一段的词法分析器，to之前必须是换行符
+	 */
+	private Scanner(char[] buf, int from, int to, NameTable names) {
+		// 字母的大小写由DFA的字符等价类统一处理，源文件不再逐行转换为小写
+		line = buf;
+		cc = ls = origin = from;
+		ll = to;
+		this.names = names;
+
+		compiled = PRECOMPILED;
+		if (!compiled)
+			dfa = SharedDFA.DFA.newCursor();
+	}
+
+	private static CharBuffer terminate(CharBuffer source) {
+		// 保证源文件以换行符结尾，最后一个符号之后总还有一个字符
+		char[] buf = source.array();
+		int len = source.limit();
+		if (len == 0 || buf[len - 1] != '\n') {
+			if (len == buf.length)
+				buf = java.util.Arrays.copyOf(buf, len + 1);
+			buf[len++] = '\n';
+		}
+		return CharBuffer.wrap(buf, 0, len);
+	}
+
+	private static CharBuffer readAll(Reader in) {
+		char[] buf = new char[8192];
+		int len = 0, n;
 		try {
-			if (cc == ll) {
-				while (l.equals(""))
-					l = in.readLine().toLowerCase() + "\n";
-				ll = l.length();
-				cc = 0;
-				line = l.toCharArray();
-//				System.out.println(PL0.interp.cx + " " + l);
-//				PL0.fa1.println(PL0.interp.cx + " " + l);
+			while ((n = in.read(buf, len, buf.length - len)) >= 0) {
+				len += n;
+				if (len == buf.length)
+					buf = java.util.Arrays.copyOf(buf, buf.length * 2);
 			}
 		} catch (IOException e) {
 			throw new Error("program imcomplete");
 		}
+		return CharBuffer.wrap(buf, 0, len);
+	}
+
+	private static CharBuffer mapAll(Path file) throws IOException {
+		try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+			// 与FileReader一样按平台默认编码解码，解码结果即是词法分析使用的缓冲区
+			CharBuffer cb = Charset.defaultCharset().decode(fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size()));
+			return CharBuffer.wrap(cb.array(), 0, cb.limit());
+		}
+	}
+
+	/**
+	 * 读取一个字符，源文件已全部在缓冲区中，读到末尾说明程序不完整
+	 */
+	void getch() {
+		if (cc == ll)
+			throw new Error("program imcomplete");
+		if (ch == '\n')
+			ls = cc;						// 上一个字符是换行，新的一行从这里开始
 		ch = line[cc];
 		cc ++;
 	}
 	
 	public void getsym() {
-		StringBuilder s = new StringBuilder(); int end_type = -1;
+		if (replay != null) {
+			replay.next(this);
+			return;
+		}
+		if (compiled) {
+			getsymCompiled();
+			return;
+		}
+		int end_type = -1, start = cc - 1;
 		dfa.reset();
 		while(true) {
 			dfa.action(ch);
 			if(dfa.isEndingState()) {
 				end_type = dfa.getEndingType();
 				if(end_type == BLANK || end_type == LINEBREAK) {
+					cc = dfa.skip(line, cc, ll);				// 整段跳过空白
 					dfa.reset();
+					end_type = -1;								// 空白不算作下一个符号的终态
 					getch();
+					start = cc - 1;
 					continue;
 				}
 			}
 			if(dfa.isLegalState()) {
-				s.append(ch);
+				cc = dfa.skip(line, cc, ll);					// 自环状态上的一段字符不必逐个转移
 				getch();
 			} else break;
 		}
-		record(s, end_type);
+		record(start, cc - 1, end_type);
 	}
 
-	private void record(StringBuilder s, int end_type)
+	/**
+	 * 与getsym()相同，但状态转移直接调用生成的PL0Lexer，便于JIT内联
+	 */
+	private void getsymCompiled() {
+		int end_type = -1, start = cc - 1, state = PL0Lexer.START, t;
+		while(true) {
+			state = PL0Lexer.next(state, ch);
+			if(state == PL0Lexer.ILLEGALSTATE)
+				break;
+			if((t = PL0Lexer.endType(state)) != 0) {
+				end_type = t;
+				if(end_type == BLANK || end_type == LINEBREAK) {
+					cc = PL0Lexer.skip(state, line, cc, ll);
+					state = PL0Lexer.START;
+					end_type = -1;
+					getch();
+					start = cc - 1;
+					continue;
+				}
+			}
+			cc = PL0Lexer.skip(state, line, cc, ll);
+			getch();
+		}
+		record(start, cc - 1, end_type);
+	}
+
+	/**
+	 * 单词不跨行，总是源文件缓冲区中连续的一段，直接从缓冲区取出其内容
+	 * @param start 单词的起始位置
+	 * @param end 单词的结束位置（不含）
+	 */
+	private void record(int start, int end, int end_type)
 	{
+		int i;
+		tokStart = start;								// 出错时也记下位置，一次分析整个源文件时据此推迟报错
+		tokEnd = end;
 		if(end_type == -1)
 			throw new RuntimeException("illegal character " + ch);
-		int i;
 		if(end_type == IDENT) {
-			id = s.toString();
-			i = java.util.Arrays.binarySearch(word, id);
+			// 先查保留字，至多一次完整比较，保留字不进入驻留表
+			i = keywords.find(line, start, end);
 			if (i < 0) {
 				// 一般标识符
 				sym = Symbol.ident;
+				idn = names.intern(line, start, end);
+				id = names.name(idn);
 			} else {
 				// 关键字
 				sym = wsym[i];
+				id = word[i];
 			}
 		} else if(end_type == NUMBER) {
 			sym = Symbol.number;
-			num = 0; i = 0;
-			while(i<s.length()) {
-				num = 10*num + Character.digit(s.charAt(i), 10);
-				i++;
-			}
-			i--;
-			if (i > PL0.nmax)
+			num = 0;
+			for(i=start;i<end;i++)
+				num = 10*num + Character.digit(line[i], 10);
+			if (end - start - 1 > PL0.nmax && !batch)
 				Err.report(30);
-		} else if(end_type == OPERATOR) {
-		    String ops = s.toString();
-		    switch (ops) {
-				case ":=": sym = Symbol.becomes; break;
-				case "<=": sym = Symbol.leq; break;
-				case ">=": sym = Symbol.geq; break;
-				case "||": sym = Symbol.or; break;
-				case "&&": sym = Symbol.and; break;
-				default:
-					sym = ssym[ops.charAt(0)];
-					break;
+		} else if(end_type <= OPERATOR) {
+			// 操作符的终态直接给出符号值，不必再看单词的内容
+			sym = OPSYMS[OPERATOR - end_type];
+		}
+	}
+
+	/**
+	 * 从当前位置起把剩余的源文件一次分析完，所有符号存入TokenArray
+	 */
+	public TokenArray tokenize() {
+		TokenArray ret = new TokenArray(names, line, ll);
+		int last = lastNonBlank(), idn;
+		// ch总是下一个符号之前尚未处理的字符，从它起只剩空白时分析结束
+		batch = true;
+		try {
+			while (hasMore(last)) {
+				try {
+					getsym();
+				} catch (RuntimeException | Error e) {
+					// 记下错误后跳过出错的字符继续分析，语法分析器只取到第一个错误为止，之后的符号供增量分析对齐
+					ret.fail(e, tokStart, cc);
+					if (cc == ll)
+						break;
+					getch();
+					continue;
+				}
+				idn = tokenIdn();
+				ret.add(sym, tokStart, tokEnd - tokStart, sym == Symbol.number ? num : 0, idn, ls);
+			}
+		} finally {
+			batch = false;
+		}
+		return ret;
+	}
+
+	/**
+	 * 启动单独的词法分析线程，之后的getsym从环形缓冲区取出该线程分析好的符号，词法分析与语法分析在两个核上重叠进行
+	 */
+	public void pipeline() {
+		Scanner producer = new Scanner(line, cc == 0 ? 0 : cc - 1, ll, names);
+		producer.ls = ls;
+		TokenRing ring = new TokenRing(RING);
+		Thread t = new Thread(() -> producer.produce(ring), "pl0-lexer");
+		t.setDaemon(true);
+		t.start();
+		replay = ring;
+	}
+
+	private void produce(TokenRing ring) {
+		// 驻留表只由本线程访问，标识符名字随符号一起交给语法分析线程
+		int last = lastNonBlank(), idn;
+		batch = true;
+		try {
+			while (hasMore(last)) {
+				getsym();
+				idn = tokenIdn();
+				if (!ring.put(sym, tokStart, tokEnd - tokStart, sym == Symbol.number ? num : 0, idn, idn >= 0 ? id : null, ls))
+					return;								// 语法分析已经结束，不再需要之后的符号
+			}
+			ring.close(null);
+		} catch (Throwable e) {
+			ring.close(e);
+		}
+	}
+
+	private boolean hasMore(int last) {
+		// ch之后（若ch是真实读入的字符则含ch）还有非空白字符
+		return (cc == origin ? cc : cc - 1) <= last;
+	}
+
+	private int lastNonBlank() {
+		int last = ll - 1;
+		while (last >= origin && (line[last] == ' ' || line[last] == '\t' || line[last] == '\r' || line[last] == '\n'))
+			last--;
+		return last;
+	}
+
+	/**
+	 * 保留字符号对应的名字，其余符号返回null
+	 */
+	static String keyword(Symbol sym) {
+		return wname[sym.ordinal()];
+	}
+
+	private int tokenIdn() {
+		// 只有一般标识符经过驻留表，其余符号没有编号
+		return sym == Symbol.ident ? idn : -1;
+	}
+
+	/**
+	 * 与tokenize()相同，但把剩余的源文件按行切成若干段，在线程池中各自分析后按顺序拼接。
+	 * 符号不会跨行，因此结果与逐段顺序分析完全相同，标识符编号也按首次出现的顺序分配
+	 */
+	public TokenArray tokenize(ForkJoinPool pool) {
+		int from = cc == 0 ? 0 : cc - 1, n = pool.getParallelism() * 4, size = Math.max(CHUNK, (ll - from) / n + 1);
+		java.util.ArrayList<Integer> bounds = new java.util.ArrayList<>();
+		bounds.add(from);
+		for (int p = from + size; p < ll; p += size) {
+			while (line[p - 1] != '\n')
+				p++;										// 切分点移到下一行行首，ll之前总是换行符
+			if (p < ll)
+				bounds.add(p);
+		}
+		bounds.add(ll);
+		ChunkTask[] tasks = new ChunkTask[bounds.size() - 1];
+		for (int i = 0; i < tasks.length; i++)
+			tasks[i] = new ChunkTask(bounds.get(i), bounds.get(i + 1), i == 0 ? ls : bounds.get(i));
+		pool.invoke(new RecursiveTask<Void>() {
+			protected Void compute() {
+				invokeAll(tasks);
+				return null;
 			}
+		});
+		// 按顺序拼接，各段的局部标识符编号依次登记到本词法分析器的驻留表中
+		TokenArray ret = new TokenArray(names, line, ll);
+		for (ChunkTask t : tasks) {
+			TokenArray part = t.join();
+			NameTable local = part.names();
+			int[] remap = new int[local.size()];
+			for (int i = 0; i < remap.length; i++)
+				remap[i] = names.intern(local.name(i));
+			ret.append(part, remap);
 		}
+		cc = ll;
+		ch = '\n';
+		return ret;
+	}
+
+	/**
+	 * 分析一段源文件，每段使用各自的词法分析器与驻留表
+	 */
+	private class ChunkTask extends RecursiveTask<TokenArray> {
+		private static final long serialVersionUID = 1L;
+		
+		private final int from, to, lineStart;
+		
+		ChunkTask(int from, int to, int lineStart) {
+			this.from = from;
+			this.to = to;
+			this.lineStart = lineStart;
+		}
+		
+		protected TokenArray compute() {
+			Scanner s = new Scanner(line, from, to, new NameTable());
+			s.ls = lineStart;
+			return s.tokenize();
+		}
+	}
+
+	/**
+	 * 增量分析：在tokens的源文件中把从offset起的removed个字符替换为inserted，只重新分析受影响的一段。
+	 * 符号不跨越空白，它的范围只取决于它本身和紧随其后的一个字符，因此结束位置早于offset的符号不受影响，
+	 * 从第一个受影响的符号（或offset，若它在空白中）开始以初始状态重新分析；越过修改处之后，
+	 * 一旦新符号与某个旧符号在同一位置开始，两者之后的字符与状态都相同，其余的旧符号直接沿用。
+	 * 出错时跳过出错的字符继续分析，与tokenize()相同，因此第一个错误之后的符号也能用来对齐。
+	 * <p>源文件存放在间隙缓冲区中，符号数组也在修改处留有空隙，空隙之后的符号位置相对于源文件末尾存放，
+	 * 修改、平移与沿用都不必复制整个源文件或逐个改写后面的符号。重新分析按行分段进行，每段只把源文件的
+	 * 空隙移到段尾使该段连续，一段内没有对齐时再分析加倍长度的下一段。每次调用的开销与重新分析的长度、
+	 * 修改处所在的行、错误的个数以及修改处到上一次修改处的距离成正比，与源文件的总长度无关。
+	 * 新出现的标识符都登记到tokens的驻留表中，被删掉的标识符的名字不会从中移除。</p>
+	 * @return 原地修改后的tokens，标识符编号沿用原来的驻留表
+	 */
+	public static TokenArray relex(TokenArray tokens, int offset, int removed, String inserted) {
+		int len = tokens.sourceLength(), ins = inserted.length(), delta = ins - removed;
+		if (offset < 0 || removed < 0 || offset + removed > len)
+			throw new IllegalArgumentException("illegal edit:" + offset + "," + removed);
+		int size = tokens.stored(), lo = 0, hi = size;
+		// 二分找到第一个结束位置不早于offset的旧符号
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (tokens.start(mid) + tokens.length(mid) < offset)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		// 出错时读过的字符被修改的话，该错误也要重新分析
+		int pe = tokens.firstError(offset), restart = Math.min(offset, lo < size ? tokens.start(lo) : offset);
+		if (pe < tokens.errorCount())
+			restart = Math.min(restart, tokens.errorStart(pe));
+		tokens.moveGap(lo);
+		tokens.edit(offset, removed, inserted);
+		tokens.shiftErrors(pe, delta);
+		GapBuffer text = tokens.text();
+		int ls = restart, from = restart, to = text.lineEnd(offset + ins), editEnd = offset + ins, g;
+		while (ls > 0 && text.charAt(ls - 1) != '\n')
+			ls--;
+		while (true) {
+			Scanner s = new Scanner(text.prefix(to), from, to, tokens.names());
+			s.ls = ls;
+			s.batch = true;
+			int last = s.lastNonBlank();
+			while (s.hasMore(last)) {
+				Throwable error = null;
+				try {
+					s.getsym();
+				} catch (RuntimeException | Error e) {
+					error = e;
+				}
+				// 开始位置已被越过的旧符号与错误不可能再与之后的新符号对齐
+				while ((g = tokens.gap()) < tokens.stored() && tokens.start(g) < s.tokStart)
+					tokens.drop();
+				while (pe < tokens.errorCount() && tokens.errorStart(pe) <= s.tokStart)
+					tokens.removeErrors(pe, pe + 1);
+				if (error != null) {
+					tokens.insertError(pe++, error, s.tokStart, s.cc);
+					if (s.cc == to)
+						break;
+					s.getch();
+					continue;
+				}
+				if (s.tokStart >= editEnd && g < tokens.stored() && tokens.start(g) == s.tokStart) {
+					// 与旧符号重新对齐，之后的符号与错误原样沿用，修改处所在行上的符号换用新的行首位置
+					tokens.fixLines(tokens.line(g), s.ls);
+					return tokens;
+				}
+				tokens.add(s.sym, s.tokStart, s.tokEnd - s.tokStart, s.sym == Symbol.number ? s.num : 0, s.tokenIdn(), s.ls);
+			}
+			if (to == text.length())
+				break;
+			// 下一段从行首开始，长度加倍
+			ls = from = to;
+			to = text.lineEnd(Math.min(to + (to - restart), text.length()));
+		}
+		tokens.truncate();
+		tokens.removeErrors(pe, tokens.errorCount());
+		return tokens;
+	}
+
+	/**
+	 * 之后的getsym依次从source中取出符号，不再分析源文件
+	 */
+	public void replay(TokenSource source) {
+		replay = source;
+	}
+
+	/**
+	 * 语法分析结束或中止后调用，结束流水线方式下的词法分析线程
+	 */
+	public void close() {
+		if (replay != null)
+			replay.close();
 	}
 
 	public static void main(String[] args) throws IOException
     {
-        BufferedReader in = new BufferedReader(new FileReader("proc1.txt"));
-        Scanner s = new Scanner(in);
+        Scanner s = new Scanner(Paths.get("proc1.txt"));
         while(s.sym != Symbol.period) {
             s.getsym();
             System.out.print(s.sym + " ");
@@ -239,7 +654,7 @@ public class Scanner {
 		id = sb.toString();
 		
 		// 然后搜索是不是保留字（请注意使用的是什么搜索方法）
-		i = java.util.Arrays.binarySearch(word, id);
+		i = keywords.find(id.toCharArray(), 0, id.length());
 		
 		// 最后形成符号信息
 		if (i < 0) {
@@ -0,0 +1,19 @@
+package PL0_Compiler;
+
+import DataStructure.DFABenchmark;
+
+/**
+ *　　用Scanner实际使用的词法规则测量自动机的构造代价，之后再测量DFABenchmark中合成的规则集。
+ */
+public class ScannerBenchmark {
+	/**
+	 * 主函数
+	 * @param args 可选的预热次数与计时次数，同DFABenchmark
+	 */
+	public static void main(String[] args) {
+		DFABenchmark bm = new DFABenchmark(args);
+		bm.header();
+		bm.runAll("pl0", Scanner.REGEX, Scanner.ENDS);
+		bm.runSynthetic();
+	}
+}
@@ -0,0 +1,19 @@
+package PL0_Compiler;
+
+import java.io.IOException;
+import DataStructure.LexerGenerator;
+
+/**
+ *　　根据Scanner中的词法规则生成专用的状态机类PL0Lexer，词法规则修改后需要重新运行。
+ */
+public class ScannerGenerator {
+	/**
+	 * 主函数
+	 * @param args 可选的输出文件路径，默认为 PL0_Compiler/PL0Lexer.java
+	 */
+	public static void main(String[] args) throws IOException {
+		String path = args.length > 0 ? args[0] : "PL0_Compiler/PL0Lexer.java";
+		new LexerGenerator(Scanner.REGEX, Scanner.ENDS).write(path, "PL0_Compiler", "PL0Lexer");
+		System.out.println("generated " + path);
+	}
+}
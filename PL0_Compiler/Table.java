@@ -16,6 +16,7 @@ public class Table {
 	 */
 	public class Item {
 		String name;		// 名字
+		int idn;			// 名字在驻留表中的编号
 		Objekt kind;		// 类型：const, var or procedure
 		int val;			// 数值，仅const使用
 		int level;			// 所处层，var和procedure使用
@@ -43,6 +44,7 @@ public class Table {
 		if (table[i] == null) {
 			table[i] = new Item();
 			table[i].name = "";
+			table[i].idn = -1;
 		}
 		return table[i];
 	}
@@ -57,6 +59,7 @@ public class Table {
 		tx ++;
 		Item item = get(tx);
 		item.name = PL0.lex.id;			// 注意id和num都是从词法分析器获得
+		item.idn = PL0.lex.idn;
 		item.kind = k;
 		switch (k) {
 		case constant:					// 常量名字
@@ -122,4 +125,17 @@ public class Table {
 		
 		return 0;
 	}
+
+	/**
+	 * 在名字表中按标识符编号查找某个名字的位置，只比较整数
+	 * @param idn 要查找的名字在驻留表中的编号
+	 * @return 如果找到则返回名字项的下标，否则返回0
+	 */
+	public int position(int idn) {
+		for (int i = tx; i > 0; i--)
+			if (get(i).idn == idn)
+				return i;
+		
+		return 0;
+	}
 }
@@ -0,0 +1,425 @@
+package PL0_Compiler;
+
+import java.util.Arrays;
+
+/**
+ *　　一次词法分析得到的全部符号，每个符号的各项信息分别存放在并列的基本类型数组中，
+ *　　可以通过Cursor依次交给语法分析器，也可以重复用于再次分析。
+ *　　增量分析时数组中上一次修改处留有空隙，空隙之后的符号位置相对于源文件末尾存放，
+ *　　修改处之前的文本长度改变时它们不必逐个平移。
+ */
+public class TokenArray {
+	private static final Symbol[] SYMBOLS = Symbol.values();
+	
+	/**
+	 * 符号值的序号
+	 */
+	private byte[] syms = new byte[1024];
+	
+	/**
+	 * 符号在源文件中的起始位置
+	 */
+	private int[] starts = new int[1024];
+	
+	/**
+	 * 符号的长度
+	 */
+	private int[] lens = new int[1024];
+	
+	/**
+	 * 数值大小（如果是数字的话）
+	 */
+	private int[] nums = new int[1024];
+	
+	/**
+	 * 标识符的编号（如果是标识符的话），否则为-1
+	 */
+	private int[] idns = new int[1024];
+	
+	/**
+	 * 符号所在行的起始位置，用于报错时给出列号
+	 */
+	private int[] lines = new int[1024];
+	
+	/**
+	 * 符号个数
+	 */
+	private int size = 0;
+	
+	/**
+	 * 空隙之前的符号个数，空隙之后的符号从下标gap + 数组长度 - size起存放；只整体分析过时空隙总在末尾
+	 */
+	private int gap = 0;
+	
+	/**
+	 * 分析中途遇到的错误（如非法字符），按位置排列，以及各错误的开始位置与跳过出错字符后继续分析的位置。
+	 * 语法分析器只取到第一个错误之前的符号，取完后才抛出该错误，其后的符号与错误供增量分析对齐
+	 */
+	private Throwable[] errors = new Throwable[4];
+	private int[] errorStarts = new int[4];
+	private int[] errorEnds = new int[4];
+	private int errorCount = 0;
+	
+	/**
+	 * 第一个错误之前的符号个数，-1表示修改后尚未重新计算
+	 */
+	private int limit = -1;
+	
+	/**
+	 * 标识符的驻留表，由标识符编号取得名字
+	 */
+	private final NameTable names;
+	
+	/**
+	 * 分析所用的源文件，增量分析时在其中原地修改
+	 */
+	private final GapBuffer text;
+	
+	TokenArray(NameTable names, char[] source, int length) {
+		this.names = names;
+		this.text = new GapBuffer(source, length);
+	}
+	
+	/**
+	 * 在空隙处加入一个符号，只整体分析过时即加在末尾
+	 */
+	void add(Symbol sym, int start, int len, int num, int idn, int line) {
+		if (size == syms.length) {
+			int n = size * 2;
+			syms = grow(syms, n);
+			starts = grow(starts, n);
+			lens = grow(lens, n);
+			nums = grow(nums, n);
+			idns = grow(idns, n);
+			lines = grow(lines, n);
+		}
+		syms[gap] = (byte) sym.ordinal();
+		starts[gap] = start;
+		lens[gap] = len;
+		nums[gap] = num;
+		idns[gap] = idn;
+		lines[gap] = line;
+		gap ++;
+		size ++;
+		limit = -1;
+	}
+	
+	private byte[] grow(byte[] a, int n) {
+		byte[] ret = Arrays.copyOf(a, n);
+		System.arraycopy(a, gap + a.length - size, ret, gap + n - size, size - gap);
+		return ret;
+	}
+	
+	private int[] grow(int[] a, int n) {
+		// 空隙之后的符号移到新数组的末尾
+		int[] ret = Arrays.copyOf(a, n);
+		System.arraycopy(a, gap + a.length - size, ret, gap + n - size, size - gap);
+		return ret;
+	}
+	
+	/**
+	 * 把另一段符号接在末尾，其标识符编号按remap换成本表的编号，两者都只整体分析过
+	 */
+	void append(TokenArray o, int[] remap) {
+		int n = size + o.size;
+		if (n > syms.length) {
+			int cap = Math.max(n, syms.length * 2);
+			syms = Arrays.copyOf(syms, cap);
+			starts = Arrays.copyOf(starts, cap);
+			lens = Arrays.copyOf(lens, cap);
+			nums = Arrays.copyOf(nums, cap);
+			idns = Arrays.copyOf(idns, cap);
+			lines = Arrays.copyOf(lines, cap);
+		}
+		System.arraycopy(o.syms, 0, syms, size, o.size);
+		System.arraycopy(o.starts, 0, starts, size, o.size);
+		System.arraycopy(o.lens, 0, lens, size, o.size);
+		System.arraycopy(o.nums, 0, nums, size, o.size);
+		System.arraycopy(o.lines, 0, lines, size, o.size);
+		for (int i = 0; i < o.size; i++)
+			idns[size + i] = o.idns[i] < 0 ? o.idns[i] : remap[o.idns[i]];
+		size = gap = n;
+		for (int k = 0; k < o.errorCount; k++)
+			fail(o.errors[k], o.errorStarts[k], o.errorEnds[k]);
+		limit = -1;
+	}
+	
+	/**
+	 * 记录分析从at开始的符号时遇到的错误，跳过出错的字符后从end继续分析
+	 */
+	void fail(Throwable e, int at, int end) {
+		insertError(errorCount, e, at, end);
+	}
+	
+	/**
+	 * 在第k个错误之前插入一个错误
+	 */
+	void insertError(int k, Throwable e, int at, int end) {
+		if (errorCount == errors.length) {
+			errors = Arrays.copyOf(errors, errorCount * 2);
+			errorStarts = Arrays.copyOf(errorStarts, errorCount * 2);
+			errorEnds = Arrays.copyOf(errorEnds, errorCount * 2);
+		}
+		System.arraycopy(errors, k, errors, k + 1, errorCount - k);
+		System.arraycopy(errorStarts, k, errorStarts, k + 1, errorCount - k);
+		System.arraycopy(errorEnds, k, errorEnds, k + 1, errorCount - k);
+		errors[k] = e;
+		errorStarts[k] = at;
+		errorEnds[k] = end;
+		errorCount ++;
+		limit = -1;
+	}
+	
+	/**
+	 * 删除第from到to个错误
+	 */
+	void removeErrors(int from, int to) {
+		System.arraycopy(errors, to, errors, from, errorCount - to);
+		System.arraycopy(errorStarts, to, errorStarts, from, errorCount - to);
+		System.arraycopy(errorEnds, to, errorEnds, from, errorCount - to);
+		errorCount -= to - from;
+		Arrays.fill(errors, errorCount, errorCount + to - from, null);
+		limit = -1;
+	}
+	
+	/**
+	 * 第一个读过的字符不早于offset的错误，即修改offset处时受影响的第一个错误
+	 */
+	int firstError(int offset) {
+		int k = 0;
+		while (k < errorCount && errorEnds[k] <= offset)
+			k++;
+		return k;
+	}
+	
+	/**
+	 * 第k个起的错误位置都移动delta，错误一般只有几个，逐个修改即可
+	 */
+	void shiftErrors(int k, int delta) {
+		for (; k < errorCount; k++) {
+			errorStarts[k] += delta;
+			errorEnds[k] += delta;
+		}
+		limit = -1;
+	}
+	
+	int errorCount() {
+		return errorCount;
+	}
+	
+	int errorStart(int k) {
+		return errorStarts[k];
+	}
+	
+	/**
+	 * 把空隙移到第i个符号之前，开销与移动的距离成正比
+	 */
+	void moveGap(int i) {
+		int tail = syms.length - size, len = text.length(), n;
+		if (i < gap) {
+			n = gap - i;
+			for (int k = i; k < gap; k++) {
+				// 移到空隙之后的符号改为相对于末尾的位置
+				starts[k] -= len;
+				lines[k] -= len;
+			}
+			move(i, i + tail, n);
+		} else if (i > gap) {
+			n = i - gap;
+			move(gap + tail, gap, n);
+			for (int k = gap; k < i; k++) {
+				starts[k] += len;
+				lines[k] += len;
+			}
+		}
+		gap = i;
+	}
+	
+	private void move(int from, int to, int n) {
+		System.arraycopy(syms, from, syms, to, n);
+		System.arraycopy(starts, from, starts, to, n);
+		System.arraycopy(lens, from, lens, to, n);
+		System.arraycopy(nums, from, nums, to, n);
+		System.arraycopy(idns, from, idns, to, n);
+		System.arraycopy(lines, from, lines, to, n);
+	}
+	
+	/**
+	 * 在源文件中把从offset起的removed个字符替换为inserted，空隙之后的符号随之平移，
+	 * 修改后的源文件仍以换行符结尾
+	 */
+	void edit(int offset, int removed, String inserted) {
+		text.replace(offset, removed, inserted);
+		int n = text.length();
+		if (n == 0 || text.charAt(n - 1) != '\n')
+			text.replace(n, 0, "\n");					// 只在修改到末尾时发生，此时空隙就在末尾
+		limit = -1;
+	}
+	
+	/**
+	 * 丢弃空隙之后的第一个符号
+	 */
+	void drop() {
+		size --;
+		limit = -1;
+	}
+	
+	/**
+	 * 丢弃空隙之后的所有符号
+	 */
+	void truncate() {
+		size = gap;
+		limit = -1;
+	}
+	
+	/**
+	 * 把空隙之后行首位置为old的符号都改为line，用于修改处之后同一行上的符号
+	 */
+	void fixLines(int old, int line) {
+		int len = text.length();
+		for (int k = gap + syms.length - size; k < syms.length && lines[k] + len == old; k++)
+			lines[k] = line - len;
+	}
+	
+	/**
+	 * 包括第一个错误之后的在内，存放的全部符号个数
+	 */
+	int stored() {
+		return size;
+	}
+	
+	/**
+	 * 空隙之前的符号个数，空隙之后的第一个符号即第gap()个
+	 */
+	int gap() {
+		return gap;
+	}
+	
+	GapBuffer text() {
+		return text;
+	}
+	
+	private int index(int i) {
+		return i < gap ? i : i + syms.length - size;
+	}
+	
+	private int shift(int i) {
+		return i < gap ? 0 : text.length();
+	}
+	
+	/**
+	 * 第一个错误之前的符号个数，即交给语法分析器的符号个数
+	 */
+	public int size() {
+		if (limit < 0) {
+			int lo = 0, hi = size;
+			// 二分找到第一个在错误之后的符号，没有错误时即全部符号
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (errorCount == 0 || start(mid) < errorStarts[0])
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			limit = lo;
+		}
+		return limit;
+	}
+	
+	public Symbol sym(int i) {
+		return SYMBOLS[syms[index(i)]];
+	}
+	
+	public int start(int i) {
+		return starts[index(i)] + shift(i);
+	}
+	
+	public int length(int i) {
+		return lens[index(i)];
+	}
+	
+	public int num(int i) {
+		return nums[index(i)];
+	}
+	
+	public int idn(int i) {
+		return idns[index(i)];
+	}
+	
+	public int line(int i) {
+		return lines[index(i)] + shift(i);
+	}
+	
+	public Throwable error() {
+		return errorCount > 0 ? errors[0] : null;
+	}
+	
+	public int errorAt() {
+		return errorCount > 0 ? errorStarts[0] : 0;
+	}
+	
+	public NameTable names() {
+		return names;
+	}
+	
+	public CharSequence source() {
+		return text;
+	}
+	
+	public int sourceLength() {
+		return text.length();
+	}
+	
+	/**
+	 * 从第一个符号开始的游标，每个游标各自记录读到的位置
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+	
+	/**
+	 *　　依次取出符号并填入词法分析器的sym、id、idn、num等字段，语法分析器照常从词法分析器读取
+	 */
+	public class Cursor implements TokenSource {
+		private int pos = 0;
+		
+		private Cursor() {
+		}
+		
+		public boolean hasNext() {
+			return pos < size();
+		}
+		
+		public void reset() {
+			pos = 0;
+		}
+		
+		public void next(Scanner lex) {
+			if (pos == size()) {
+				// 与逐个分析时一样，出错之前的符号都已交给语法分析器，到这里才抛出分析时的错误
+				Throwable error = error();
+				if (error instanceof RuntimeException)
+					throw (RuntimeException) error;
+				if (error instanceof Error)
+					throw (Error) error;
+				throw new Error("program imcomplete");
+			}
+			int i = index(pos), shift = shift(pos++);
+			String kw;
+			lex.sym = SYMBOLS[syms[i]];
+			if (idns[i] >= 0) {
+				lex.idn = idns[i];
+				lex.id = names.name(idns[i]);
+			} else if ((kw = Scanner.keyword(lex.sym)) != null) {
+				lex.id = kw;							// 保留字不进入驻留表，与逐个分析时一样给出保留字名字
+			}
+			lex.num = nums[i];
+			lex.tokStart = starts[i] + shift;
+			lex.tokEnd = lex.tokStart + lens[i];
+			lex.cc = lex.tokEnd + 1;					// 与逐个分析时一致，cc指向符号之后的下一个字符
+			lex.ls = lines[i] + shift;
+			if (syms[i] == Symbol.number.ordinal() && lens[i] - 1 > PL0.nmax)
+				Err.report(30);							// 分析时推迟报告的错误
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package PL0_Compiler;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *　　有界的单生产者单消费者环形缓冲区，词法分析线程写入符号，语法分析线程取出符号。
+ *　　两端都只在对方的下标上做volatile读写，不加锁；缓冲区满或空时先自旋，仍不满足再挂起等待对方唤醒。
+ */
+public class TokenRing implements TokenSource {
+	private static final Symbol[] SYMBOLS = Symbol.values();
+	
+	/**
+	 * 挂起前自旋等待的次数
+	 */
+	private static final int SPIN = 256;
+	
+	private final int mask;
+	private final byte[] syms;
+	private final int[] starts, lens, nums, idns, lines;
+	
+	/**
+	 * 标识符名字，取自驻留表，不需要另外分配
+	 */
+	private final String[] ids;
+	
+	/**
+	 * 消费者下一个要读的位置，只由消费者写
+	 */
+	private volatile long head = 0;
+	
+	/**
+	 * 生产者下一个要写的位置，只由生产者写
+	 */
+	private volatile long tail = 0;
+	
+	/**
+	 * 生产者结束的标志，以及词法分析中抛出的异常（如果有的话）
+	 */
+	private volatile boolean closed = false;
+	private Throwable error;
+	
+	/**
+	 * 消费者不再取出符号的标志，生产者等待空位时见到它就放弃写入
+	 */
+	private volatile boolean cancelled = false;
+	
+	/**
+	 * 正在挂起等待的一端，另一端推进下标后将其唤醒
+	 */
+	private volatile Thread producerWaiting, consumerWaiting;
+	
+	// 各端缓存的对方下标，只有缓存值不够用时才去读volatile下标
+	private long headCache = 0, tailCache = 0;
+	
+	/**
+	 * @param capacity 缓冲区容量，必须是2的幂
+	 */
+	public TokenRing(int capacity) {
+		if (capacity <= 0 || (capacity & (capacity - 1)) != 0)
+			throw new IllegalArgumentException("capacity must be power of 2:" + capacity);
+		mask = capacity - 1;
+		syms = new byte[capacity];
+		starts = new int[capacity];
+		lens = new int[capacity];
+		nums = new int[capacity];
+		idns = new int[capacity];
+		lines = new int[capacity];
+		ids = new String[capacity];
+	}
+	
+	/**
+	 * 生产者写入一个符号，缓冲区满时等待
+	 * @return 消费者已经取消时返回false，生产者应当结束
+	 */
+	boolean put(Symbol sym, int start, int len, int num, int idn, String id, int line) {
+		long t = tail;
+		if (t - headCache > mask) {
+			for (int spin = 0; t - (headCache = head) > mask; spin++) {
+				if (cancelled)
+					return false;
+				if (spin < SPIN) {
+					Thread.onSpinWait();
+					continue;
+				}
+				producerWaiting = Thread.currentThread();
+				if (t - head > mask && !cancelled)
+					LockSupport.park(this);
+				producerWaiting = null;
+			}
+		}
+		int i = (int) t & mask;
+		syms[i] = (byte) sym.ordinal();
+		starts[i] = start;
+		lens[i] = len;
+		nums[i] = num;
+		idns[i] = idn;
+		ids[i] = id;
+		lines[i] = line;
+		tail = t + 1;								// volatile写，之前写入的内容对消费者可见
+		Thread w = consumerWaiting;
+		if (w != null)
+			LockSupport.unpark(w);
+		return true;
+	}
+	
+	/**
+	 * 生产者结束，e不为空表示词法分析出错，消费者读完已有的符号后抛出
+	 */
+	void close(Throwable e) {
+		error = e;
+		closed = true;
+		Thread w = consumerWaiting;
+		if (w != null)
+			LockSupport.unpark(w);
+	}
+	
+	/**
+	 * 消费者不再取出符号（语法分析结束或中止），唤醒可能正在等待空位的生产者让它结束，
+	 * 否则缓冲区满后生产者将一直挂起，连同整个源文件无法回收
+	 */
+	public void close() {
+		cancelled = true;
+		Thread w = producerWaiting;
+		if (w != null)
+			LockSupport.unpark(w);
+	}
+	
+	public void next(Scanner lex) {
+		long h = head;
+		if (h == tailCache) {
+			for (int spin = 0; h == (tailCache = tail); spin++) {
+				if (closed && h == tail) {
+					if (error instanceof RuntimeException)
+						throw (RuntimeException) error;
+					if (error instanceof Error)
+						throw (Error) error;
+					throw new Error("program imcomplete");
+				}
+				if (spin < SPIN) {
+					Thread.onSpinWait();
+					continue;
+				}
+				consumerWaiting = Thread.currentThread();
+				if (h == tail && !closed)
+					LockSupport.park(this);
+				consumerWaiting = null;
+			}
+		}
+		int i = (int) h & mask;
+		String kw;
+		lex.sym = SYMBOLS[syms[i]];
+		if (idns[i] >= 0) {
+			lex.idn = idns[i];
+			lex.id = ids[i];
+			ids[i] = null;
+		} else if ((kw = Scanner.keyword(lex.sym)) != null) {
+			lex.id = kw;
+		}
+		lex.num = nums[i];
+		lex.tokStart = starts[i];
+		lex.tokEnd = starts[i] + lens[i];
+		lex.cc = lex.tokEnd + 1;
+		lex.ls = lines[i];
+		boolean tooLong = lex.sym == Symbol.number && lens[i] - 1 > PL0.nmax;
+		head = h + 1;								// 此后该位置可能被生产者覆盖
+		Thread w = producerWaiting;
+		if (w != null)
+			LockSupport.unpark(w);
+		if (tooLong)
+			Err.report(30);							// 分析时推迟报告的错误
+	}
+}
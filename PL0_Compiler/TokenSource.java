@@ -0,0 +1,18 @@
+package PL0_Compiler;
+
+/**
+ *　　预先分析好的符号来源，词法分析器从中依次取出符号而不再分析源文件
+ * @see Scanner#replay(TokenSource)
+ */
+public interface TokenSource {
+	/**
+	 * 取出下一个符号，填入词法分析器的sym、id、idn、num、cc、ls等字段
+	 */
+	void next(Scanner lex);
+
+	/**
+	 * 不再取出符号，释放为此占用的资源（如词法分析线程）
+	 */
+	default void close() {
+	}
+}